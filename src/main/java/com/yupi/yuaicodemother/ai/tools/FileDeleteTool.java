@@ -2,9 +2,11 @@ package com.yupi.yuaicodemother.ai.tools;
 
 import cn.hutool.json.JSONObject;
 import com.yupi.yuaicodemother.constant.AppConstant;
+import com.yupi.yuaicodemother.manager.StaticFileManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -21,6 +23,9 @@ import java.nio.file.Paths;
 @Component
 public class FileDeleteTool extends BaseTool {
 
+    @Resource
+    private StaticFileManager staticFileManager;
+
     @Tool("删除指定路径的文件")
     public String deleteFile(
             @P("文件的相对路径")
@@ -47,6 +52,7 @@ public class FileDeleteTool extends BaseTool {
             }
             Files.delete(path);
             log.info("成功删除文件: {}", path.toAbsolutePath());
+            staticFileManager.invalidate(path);
             return "文件删除成功: " + relativeFilePath;
         } catch (IOException e) {
             String errorMessage = "删除文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
@@ -2,9 +2,11 @@ package com.yupi.yuaicodemother.ai.tools;
 
 import cn.hutool.json.JSONObject;
 import com.yupi.yuaicodemother.constant.AppConstant;
+import com.yupi.yuaicodemother.manager.StaticFileManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -22,6 +24,9 @@ import java.nio.file.StandardOpenOption;
 @Component
 public class FileModifyTool extends BaseTool {
 
+    @Resource
+    private StaticFileManager staticFileManager;
+
     @Tool("修改文件内容，用新内容替换指定的旧内容")
     public String modifyFile(
             @P("文件的相对路径")
@@ -52,6 +57,7 @@ public class FileModifyTool extends BaseTool {
             }
             Files.writeString(path, modifiedContent, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
             log.info("成功修改文件: {}", path.toAbsolutePath());
+            staticFileManager.invalidate(path);
             return "文件修改成功: " + relativeFilePath;
         } catch (IOException e) {
             String errorMessage = "修改文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
@@ -1,9 +1,12 @@
 package com.yupi.yuaicodemother.config;
 
+import cn.hutool.core.util.StrUtil;
 import com.qcloud.cos.COSClient;
 import com.qcloud.cos.ClientConfig;
 import com.qcloud.cos.auth.BasicCOSCredentials;
 import com.qcloud.cos.auth.COSCredentials;
+import com.qcloud.cos.endpoint.UserSpecifiedEndpointBuilder;
+import com.qcloud.cos.http.HttpProtocol;
 import com.qcloud.cos.region.Region;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -44,12 +47,27 @@ public class CosClientConfig {
      */
     private String bucket;
 
+    /**
+     * 自定义服务地址（可选，如 localhost:9000），用于对接本地的 COS 兼容服务
+     */
+    private String endpoint;
+
+    /**
+     * 是否使用 https（仅在配置了自定义服务地址时生效）
+     */
+    private boolean useHttps = true;
+
     @Bean
     public COSClient cosClient() {
         // 初始化用户身份信息(secretId, secretKey)
         COSCredentials cred = new BasicCOSCredentials(secretId, secretKey);
         // 设置bucket的区域, COS地域的简称请参照 https://www.qcloud.com/document/product/436/6224
         ClientConfig clientConfig = new ClientConfig(new Region(region));
+        // 指定了自定义服务地址时，请求直接发往该地址
+        if (StrUtil.isNotBlank(endpoint)) {
+            clientConfig.setEndpointBuilder(new UserSpecifiedEndpointBuilder(endpoint, endpoint));
+            clientConfig.setHttpProtocol(useHttps ? HttpProtocol.https : HttpProtocol.http);
+        }
         // 生成cos客户端
         return new COSClient(cred, clientConfig);
     }
@@ -0,0 +1,49 @@
+package com.yupi.yuaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对象存储上传配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cos.upload")
+@Data
+public class CosUploadConfig {
+
+    /**
+     * 上传线程数（同时进行的上传任务数）
+     */
+    private int threads = 4;
+
+    /**
+     * 等待上传的任务数上限，超出时直接拒绝
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * 分块上传的阈值（字节），超过该大小时分块并行上传
+     */
+    private long multipartThresholdBytes = 8 * 1024 * 1024;
+
+    /**
+     * 分块大小（字节）
+     */
+    private long partSizeBytes = 2 * 1024 * 1024;
+
+    /**
+     * 并行上传分块的线程数
+     */
+    private int partThreads = 8;
+
+    /**
+     * 最大尝试次数（含首次）
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 首次重试前的等待时间（毫秒），之后按指数增长
+     */
+    private long initialBackoffMillis = 200;
+}
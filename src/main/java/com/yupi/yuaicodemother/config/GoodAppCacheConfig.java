@@ -0,0 +1,34 @@
+package com.yupi.yuaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 精选应用列表缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "good-app.cache")
+@Data
+public class GoodAppCacheConfig {
+
+    /**
+     * 缓存的页数（只缓存不带筛选条件的前 N 页）
+     */
+    private int maxCachedPages = 5;
+
+    /**
+     * 本地缓存过期时间（秒），兜底跨节点失效消息丢失的情况
+     */
+    private long localExpireSeconds = 30;
+
+    /**
+     * Redis 缓存过期时间（秒）
+     */
+    private long redisExpireSeconds = 600;
+
+    /**
+     * 跨节点失效通知的 Redis 频道
+     */
+    private String invalidationChannel = "app:good_feed:invalidate";
+}
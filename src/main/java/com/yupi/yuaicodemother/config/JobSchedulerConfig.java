@@ -0,0 +1,52 @@
+package com.yupi.yuaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 任务调度配置（单节点）
+ * 代码生成、Vue 项目构建、网页截图共享同一个优先级等待队列，各类任务分别有并发上限
+ */
+@Configuration
+@ConfigurationProperties(prefix = "job.scheduler")
+@Data
+public class JobSchedulerConfig {
+
+    /**
+     * 所有类型任务同时执行的总上限
+     * 其中 generationMaxConcurrent 个名额为代码生成预留，构建与截图合计最多占用其余名额（至少 1 个），
+     * 避免耗时数分钟的构建占满共享名额导致代码生成排队
+     */
+    private int maxConcurrent = 24;
+
+    /**
+     * 等待队列长度上限，队列已满时直接拒绝
+     */
+    private int maxQueueSize = 200;
+
+    /**
+     * 老化速度：任务每等待 1 秒提升的优先级分值，避免低优先级任务饿死
+     */
+    private double agingPointsPerSecond = 5;
+
+    /**
+     * 同时执行的代码生成任务上限
+     */
+    private int generationMaxConcurrent = 20;
+
+    /**
+     * 单个用户同时进行（执行中 + 排队中）的代码生成任务上限
+     */
+    private int generationMaxConcurrentPerUser = 2;
+
+    /**
+     * 同时执行的 Vue 项目构建任务上限（npm run build 为 CPU 密集型，默认与 CPU 核数一致）
+     */
+    private int vueBuildMaxConcurrent = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 同时执行的网页截图任务上限
+     */
+    private int screenshotMaxConcurrent = 2;
+}
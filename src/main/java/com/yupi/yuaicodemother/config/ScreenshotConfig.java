@@ -0,0 +1,50 @@
+package com.yupi.yuaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 网页截图配置
+ * 浏览器池大小与调度器的截图并发上限（job.scheduler.screenshot-max-concurrent）一致
+ */
+@Configuration
+@ConfigurationProperties(prefix = "screenshot")
+@Data
+public class ScreenshotConfig {
+
+    /**
+     * 浏览器窗口宽度
+     */
+    private int width = 1600;
+
+    /**
+     * 浏览器窗口高度
+     */
+    private int height = 900;
+
+    /**
+     * 从浏览器池借用浏览器的最长等待时间（秒）
+     */
+    private int borrowTimeoutSeconds = 30;
+
+    /**
+     * 单次页面加载超时（秒）
+     */
+    private int pageLoadTimeoutSeconds = 30;
+
+    /**
+     * 浏览器空闲超过该时长（秒）后关闭以释放内存
+     */
+    private int idleTimeoutSeconds = 300;
+
+    /**
+     * 封面缩略图宽度（高度按比例缩放）
+     */
+    private int thumbnailWidth = 800;
+
+    /**
+     * 封面缩略图 JPEG 质量（0~1）
+     */
+    private float jpegQuality = 0.75f;
+}
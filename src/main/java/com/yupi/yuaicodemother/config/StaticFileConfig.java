@@ -0,0 +1,24 @@
+package com.yupi.yuaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 静态资源输出配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "static-file")
+@Data
+public class StaticFileConfig {
+
+    /**
+     * 内存缓存的总容量上限（字节）
+     */
+    private long cacheMaxBytes = 64 * 1024 * 1024;
+
+    /**
+     * 可进入内存缓存的单个文件大小上限（字节），更大的文件直接从磁盘零拷贝输出
+     */
+    private long cacheMaxFileBytes = 256 * 1024;
+}
@@ -0,0 +1,29 @@
+package com.yupi.yuaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 登录用户本地缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "user.cache")
+@Data
+public class UserCacheConfig {
+
+    /**
+     * 缓存的用户数上限
+     */
+    private long maximumSize = 10000;
+
+    /**
+     * 写入后过期时间（秒），兜底跨节点失效消息丢失的情况
+     */
+    private long expireSeconds = 60;
+
+    /**
+     * 跨节点失效通知的 Redis 频道
+     */
+    private String invalidationChannel = "user:cache:invalidate";
+}
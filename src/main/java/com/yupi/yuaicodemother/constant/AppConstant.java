@@ -19,9 +19,25 @@ public interface AppConstant {
 
     /**
      * 应用部署目录
+     * 每个应用的站点根目录为 {deployKey}/current（指向当前版本），nginx 配置见 nginx/deploy.conf
      */
     String CODE_DEPLOY_ROOT_DIR = System.getProperty("user.dir") + "/tmp/code_deploy";
 
+    /**
+     * npm 依赖缓存目录（按 package.json 与锁文件的哈希分目录存放 node_modules）
+     */
+    String NPM_CACHE_ROOT_DIR = System.getProperty("user.dir") + "/tmp/npm_cache";
+
+    /**
+     * Vue 项目构建清单目录
+     */
+    String BUILD_MANIFEST_ROOT_DIR = System.getProperty("user.dir") + "/tmp/build_manifest";
+
+    /**
+     * 项目下载压缩包缓存目录
+     */
+    String DOWNLOAD_CACHE_ROOT_DIR = System.getProperty("user.dir") + "/tmp/download_cache";
+
     /**
      * 应用部署域名(nginx代理监听端口8111)
      */
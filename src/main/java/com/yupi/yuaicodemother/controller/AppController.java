@@ -2,7 +2,6 @@ package com.yupi.yuaicodemother.controller;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.yupi.yuaicodemother.annotation.AuthCheck;
@@ -11,31 +10,38 @@ import com.yupi.yuaicodemother.common.DeleteRequest;
 import com.yupi.yuaicodemother.common.ResultUtils;
 import com.yupi.yuaicodemother.constant.AppConstant;
 import com.yupi.yuaicodemother.constant.UserConstant;
+import com.yupi.yuaicodemother.core.stream.GenerationEvent;
+import com.yupi.yuaicodemother.core.stream.GenerationStreamManager;
 import com.yupi.yuaicodemother.exception.BusinessException;
 import com.yupi.yuaicodemother.exception.ErrorCode;
 import com.yupi.yuaicodemother.exception.ThrowUtils;
+import com.yupi.yuaicodemother.manager.GoodAppCacheManager;
 import com.yupi.yuaicodemother.model.dto.app.*;
 import com.yupi.yuaicodemother.model.entity.User;
 import com.yupi.yuaicodemother.model.enums.CodeGenTypeEnum;
 import com.yupi.yuaicodemother.model.vo.AppVO;
+import com.yupi.yuaicodemother.model.vo.VueBuildStatusVO;
 import com.yupi.yuaicodemother.service.ProjectDownloadService;
 import com.yupi.yuaicodemother.service.UserService;
+import com.yupi.yuaicodemother.service.VueBuildService;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.yupi.yuaicodemother.model.entity.App;
 import com.yupi.yuaicodemother.service.AppService;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import java.io.File;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 应用 控制层。
@@ -55,6 +61,15 @@ public class AppController {
     @Resource
     private ProjectDownloadService projectDownloadService;
 
+    @Resource
+    private GenerationStreamManager generationStreamManager;
+
+    @Resource
+    private VueBuildService vueBuildService;
+
+    @Resource
+    private GoodAppCacheManager goodAppCacheManager;
+
     /**
      * 下载应用代码
      *
@@ -87,7 +102,7 @@ public class AppController {
         // 6. 生成下载文件名（不建议添加中文内容）
         String downloadFileName = String.valueOf(appId);
         // 7. 调用通用下载服务
-        projectDownloadService.downloadProjectAsZip(sourceDirPath, downloadFileName, response);
+        projectDownloadService.downloadProjectAsZip(sourceDirPath, downloadFileName, request, response);
     }
 
 
@@ -135,6 +150,10 @@ public class AppController {
         app.setEditTime(LocalDateTime.now());
         boolean result = appService.updateById(app);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        // 精选应用的名称出现在首页列表中
+        if (AppConstant.GOOD_APP_PRIORITY.equals(oldApp.getPriority())) {
+            goodAppCacheManager.invalidate();
+        }
         return ResultUtils.success(true);
     }
 
@@ -212,22 +231,21 @@ public class AppController {
      * @return 精选应用列表
      */
     @PostMapping("/good/list/page/vo")
-    public BaseResponse<Page<AppVO>> listGoodAppVOByPage(@RequestBody AppQueryRequest appQueryRequest) {
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(ref = "#/components/schemas/BaseResponsePageAppVO")))
+    public ResponseEntity<Object> listGoodAppVOByPage(@RequestBody AppQueryRequest appQueryRequest) {
         ThrowUtils.throwIf(appQueryRequest == null, ErrorCode.PARAMS_ERROR);
         // 限制每页最多 20 个
         long pageSize = appQueryRequest.getPageSize();
         ThrowUtils.throwIf(pageSize > 20, ErrorCode.PARAMS_ERROR, "每页最多查询 20 个应用");
-        long pageNum = appQueryRequest.getPageNum();
-        // 只查询精选的应用
-        appQueryRequest.setPriority(AppConstant.GOOD_APP_PRIORITY);
-        QueryWrapper queryWrapper = appService.getQueryWrapper(appQueryRequest);
-        // 分页查询
-        Page<App> appPage = appService.page(Page.of(pageNum, pageSize), queryWrapper);
-        // 数据封装
-        Page<AppVO> appVOPage = new Page<>(pageNum, pageSize, appPage.getTotalRow());
-        List<AppVO> appVOList = appService.getAppVOList(appPage.getRecords());
-        appVOPage.setRecords(appVOList);
-        return ResultUtils.success(appVOPage);
+        // 带筛选条件或超出缓存页数时直接查库
+        if (!goodAppCacheManager.isCacheable(appQueryRequest)) {
+            return ResponseEntity.ok(ResultUtils.success(appService.listGoodAppVOByPage(appQueryRequest)));
+        }
+        // 首页精选列表：输出缓存的 JSON 字节
+        byte[] body = goodAppCacheManager.getPage(appQueryRequest.getPageNum(), appQueryRequest.getPageSize(),
+                () -> ResultUtils.success(appService.listGoodAppVOByPage(appQueryRequest)));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     /**
@@ -272,6 +290,11 @@ public class AppController {
         app.setEditTime(LocalDateTime.now());
         boolean result = appService.updateById(app);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        // 更新前或更新后为精选应用时，清空首页精选列表缓存
+        if (AppConstant.GOOD_APP_PRIORITY.equals(oldApp.getPriority())
+                || AppConstant.GOOD_APP_PRIORITY.equals(app.getPriority())) {
+            goodAppCacheManager.invalidate();
+        }
         return ResultUtils.success(true);
     }
 
@@ -324,31 +347,28 @@ public class AppController {
     @GetMapping(value = "/chat/gen/code", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<String>> chatToGenCode(@RequestParam Long appId,
                                                        @RequestParam String message,
+                                                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
                                                        HttpServletRequest request) {
         // 参数校验
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
         ThrowUtils.throwIf(StrUtil.isBlank(message), ErrorCode.PARAMS_ERROR, "用户消息不能为空");
         // 获取当前登录用户
         User loginUser = userService.getLoginUser(request);
-        // 调用服务生成代码（流式）
-        Flux<String> contentFlux = appService.chatToGenCode(appId, message, loginUser);
-        // 转换为 ServerSentEvent 格式
-        return contentFlux
-                .map(chunk -> {
-                    // 将内容包装成JSON对象
-                    Map<String, String> wrapper = Map.of("d", chunk);
-                    String jsonData = JSONUtil.toJsonStr(wrapper);
-                    return ServerSentEvent.<String>builder()
-                            .data(jsonData)
-                            .build();
-                })
-                .concatWith(Mono.just(
-                        // 发送结束事件
-                        ServerSentEvent.<String>builder()
-                                .event("done")
-                                .data("")
-                                .build()
-                ));
+        Flux<GenerationEvent> eventFlux;
+        if (StrUtil.isNotBlank(lastEventId)) {
+            // 断线重连：从 Last-Event-ID 之后继续推送，不会重新调用 AI
+            eventFlux = generationStreamManager.resume(lastEventId, appId, loginUser.getId());
+        } else {
+            // 调用服务生成代码（流式），生成过程与 HTTP 连接解耦
+            Flux<String> contentFlux = appService.chatToGenCode(appId, message, loginUser);
+            eventFlux = generationStreamManager.start(contentFlux, appId, loginUser.getId());
+        }
+        // 转换为 ServerSentEvent 格式，内容片段已包装为 JSON 对象，结束时发送 done 事件
+        return eventFlux.map(event -> ServerSentEvent.<String>builder()
+                .id(event.eventId())
+                .event(event.event())
+                .data(event.data())
+                .build());
     }
 
     /**
@@ -370,4 +390,41 @@ public class AppController {
         return ResultUtils.success(deployUrl);
     }
 
+    /**
+     * 回滚应用部署到上一次启用的版本
+     *
+     * @param appDeployRequest 部署请求
+     * @param request          请求
+     * @return 部署 URL
+     */
+    @PostMapping("/deploy/rollback")
+    public BaseResponse<String> rollbackDeploy(@RequestBody AppDeployRequest appDeployRequest, HttpServletRequest request) {
+        ThrowUtils.throwIf(appDeployRequest == null, ErrorCode.PARAMS_ERROR);
+        Long appId = appDeployRequest.getAppId();
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        User loginUser = userService.getLoginUser(request);
+        String deployUrl = appService.rollbackDeploy(appId, loginUser);
+        return ResultUtils.success(deployUrl);
+    }
+
+    /**
+     * 查询 Vue 项目构建状态
+     *
+     * @param appId   应用 ID
+     * @param request 请求
+     * @return 构建状态与耗时
+     */
+    @GetMapping("/build/status")
+    public BaseResponse<VueBuildStatusVO> getBuildStatus(Long appId, HttpServletRequest request) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        App app = appService.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        // 仅本人可查看构建状态
+        User loginUser = userService.getLoginUser(request);
+        if (!app.getUserId().equals(loginUser.getId())) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限查看该应用的构建状态");
+        }
+        return ResultUtils.success(vueBuildService.getBuildStatus(appId));
+    }
+
 }
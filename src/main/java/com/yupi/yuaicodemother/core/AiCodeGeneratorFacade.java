@@ -1,26 +1,33 @@
 package com.yupi.yuaicodemother.core;
 
-import cn.hutool.json.JSONUtil;
 import com.yupi.yuaicodemother.ai.AiCodeGeneratorService;
 import com.yupi.yuaicodemother.ai.AiCodeGeneratorServiceFactory;
 import com.yupi.yuaicodemother.ai.model.HtmlCodeResult;
 import com.yupi.yuaicodemother.ai.model.MultiFileCodeResult;
 import com.yupi.yuaicodemother.ai.model.message.AiResponseMessage;
+import com.yupi.yuaicodemother.ai.model.message.StreamMessage;
 import com.yupi.yuaicodemother.ai.model.message.ToolExecutedMessage;
 import com.yupi.yuaicodemother.ai.model.message.ToolRequestMessage;
 import com.yupi.yuaicodemother.core.parser.CodeParserExecutor;
+import com.yupi.yuaicodemother.core.parser.StreamingCodeParser;
 import com.yupi.yuaicodemother.core.saver.CodeFileSaverExecutor;
+import com.yupi.yuaicodemother.core.saver.StreamingCodeFileWriter;
 import com.yupi.yuaicodemother.exception.BusinessException;
 import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.manager.StaticFileManager;
+import com.yupi.yuaicodemother.model.enums.CodeBlockTypeEnum;
 import com.yupi.yuaicodemother.model.enums.CodeGenTypeEnum;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.tool.ToolExecution;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.File;
 
@@ -34,6 +41,12 @@ public class AiCodeGeneratorFacade {
     @Resource
     private AiCodeGeneratorServiceFactory aiCodeGeneratorServiceFactory;
 
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private StaticFileManager staticFileManager;
+
     /**
      * 统一入口：根据类型生成并保存代码 (使用 appId)
      *
@@ -69,8 +82,9 @@ public class AiCodeGeneratorFacade {
      * @param userMessage     用户提示词
      * @param codeGenTypeEnum 生成类型
      * @param appId           应用 ID
+     * @return 流式消息（进程内保持类型化，只在 SSE 出口序列化一次）
      */
-    public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+    public Flux<StreamMessage> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空");
         }
@@ -78,16 +92,18 @@ public class AiCodeGeneratorFacade {
         AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, codeGenTypeEnum);
         return switch (codeGenTypeEnum) {
             case HTML -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.HTML, appId);
+                TokenStream tokenStream = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
+                Flux<String> codeStream = processTextTokenStream(tokenStream, CodeGenTypeEnum.HTML);
+                yield processCodeStream(codeStream, CodeGenTypeEnum.HTML, appId).map(AiResponseMessage::new);
             }
             case MULTI_FILE -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.MULTI_FILE, appId);
+                TokenStream tokenStream = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
+                Flux<String> codeStream = processTextTokenStream(tokenStream, CodeGenTypeEnum.MULTI_FILE);
+                yield processCodeStream(codeStream, CodeGenTypeEnum.MULTI_FILE, appId).map(AiResponseMessage::new);
             }
             case VUE_PROJECT -> {
                 TokenStream tokenStream = aiCodeGeneratorService.generateVueProjectCodeStream(appId, userMessage);
-                yield processTokenStream(tokenStream);
+                yield processTokenStream(tokenStream, CodeGenTypeEnum.VUE_PROJECT);
             }
             default -> {
                 String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
@@ -105,46 +121,68 @@ public class AiCodeGeneratorFacade {
      * @return 流式响应
      */
     private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType, Long appId) {
-        // 当流式返回生成代码完成后，再保存代码
-        StringBuilder codeBuilder = new StringBuilder();
-        return codeStream.doOnNext(chunk -> {
-                    // 实时收集代码片段
-                    codeBuilder.append(chunk);
-                })
-                .doOnComplete(() -> {
-                    // 流式返回完成后保存代码
-                    try {
-                        String completeCode = codeBuilder.toString();
-                        // 使用执行器解析代码
-                        Object parserResult = CodeParserExecutor.executeParser(completeCode, codeGenType);
-                        // 使用执行器保存代码
-                        File savedDir = CodeFileSaverExecutor.executeSaver(parserResult, codeGenType, appId);
-                        log.info("保存成功，路径为：" + savedDir.getAbsolutePath());
-                    } catch (Exception e) {
-                        log.error("保存失败: {}", e.getMessage());
+        // 代码片段到达时即增量解析，每个代码块边生成边写入临时文件，代码块结束后原子替换为正式文件，实现实时预览
+        StreamingCodeFileWriter fileWriter = CodeFileSaverExecutor.createStreamingWriter(codeGenType, appId);
+        StreamingCodeParser streamingCodeParser = new StreamingCodeParser(fileWriter, false);
+        return codeStream.doOnNext(streamingCodeParser::feed)
+                // 流结束后完成保存，保存失败时以错误信号通知客户端
+                .concatWith(Mono.fromRunnable(() -> {
+                    streamingCodeParser.finish();
+                    if (fileWriter.isSaved(CodeBlockTypeEnum.HTML)) {
+                        log.info("保存成功，路径为：" + fileWriter.getBaseDir().toAbsolutePath());
+                        return;
                     }
+                    // 没有识别到 HTML 代码块：先删除已写入的 CSS / JS 文件，保持"必须有 HTML"的规则，
+                    // 再按原有逻辑解析并保存（HTML 模式将整个内容作为 HTML，多文件模式校验失败并报错）
+                    fileWriter.deleteSavedFiles();
+                    Object parserResult = CodeParserExecutor.executeParser(streamingCodeParser, codeGenType);
+                    File savedDir = CodeFileSaverExecutor.executeSaver(parserResult, codeGenType, appId);
+                    log.info("保存成功，路径为：" + savedDir.getAbsolutePath());
+                }))
+                // 出错或被取消时清理未完成的临时文件，并释放该目录在内存中的旧缓存
+                .doFinally(signalType -> {
+                    fileWriter.close();
+                    staticFileManager.invalidate(fileWriter.getBaseDir());
                 });
     }
 
     /**
-     * 将 TokenStream 转换为 Flux<String>，并传递工具调用信息
+     * 将纯文本输出的 TokenStream 转换为 Flux<String>（HTML / 多文件模式）
      *
      * @param tokenStream TokenStream 对象
+     * @param codeGenType 代码生成类型
      * @return Flux<String> 流式响应
      */
-    private Flux<String> processTokenStream(TokenStream tokenStream) {
+    private Flux<String> processTextTokenStream(TokenStream tokenStream, CodeGenTypeEnum codeGenType) {
+        return Flux.create(sink -> {
+            // 下游取消订阅（如浏览器关闭 SSE 连接）时，终止上游的 AI 流式调用
+            sink.onCancel(() -> cancelTokenStream(tokenStream, codeGenType));
+            tokenStream.onPartialResponse(sink::next)
+                    .onCompleteResponse((ChatResponse response) -> sink.complete())
+                    .onError(sink::error)
+                    .start();
+        });
+    }
+
+    /**
+     * 将 TokenStream 转换为 Flux<StreamMessage>，并传递工具调用信息
+     *
+     * @param tokenStream TokenStream 对象
+     * @param codeGenType 代码生成类型
+     * @return Flux<StreamMessage> 流式响应
+     */
+    private Flux<StreamMessage> processTokenStream(TokenStream tokenStream, CodeGenTypeEnum codeGenType) {
         return Flux.create(sink -> {
+            // 下游取消订阅（如浏览器关闭 SSE 连接）时，终止上游的 AI 流式调用和后续的工具调用轮次
+            sink.onCancel(() -> cancelTokenStream(tokenStream, codeGenType));
             tokenStream.onPartialResponse((String partialResponse) -> {
-                        AiResponseMessage aiResponseMessage = new AiResponseMessage(partialResponse);
-                        sink.next(JSONUtil.toJsonStr(aiResponseMessage));
+                        sink.next(new AiResponseMessage(partialResponse));
                     })
                     .onPartialToolExecutionRequest((index, toolExecutionRequest) -> {
-                        ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                        sink.next(JSONUtil.toJsonStr(toolRequestMessage));
+                        sink.next(new ToolRequestMessage(toolExecutionRequest));
                     })
                     .onToolExecuted((ToolExecution toolExecution) -> {
-                        ToolExecutedMessage toolExecutedMessage = new ToolExecutedMessage(toolExecution);
-                        sink.next(JSONUtil.toJsonStr(toolExecutedMessage));
+                        sink.next(new ToolExecutedMessage(toolExecution));
                     })
                     .onCompleteResponse((ChatResponse response) -> {
                         sink.complete();
@@ -157,4 +195,20 @@ public class AiCodeGeneratorFacade {
         });
     }
 
+    /**
+     * 取消 AI 流式生成并记录取消次数
+     *
+     * @param tokenStream TokenStream 对象
+     * @param codeGenType 代码生成类型
+     */
+    private void cancelTokenStream(TokenStream tokenStream, CodeGenTypeEnum codeGenType) {
+        log.info("客户端已断开，取消 AI 代码生成，类型：{}", codeGenType.getValue());
+        tokenStream.cancel();
+        Counter.builder("ai.codegen.cancelled")
+                .description("客户端断开后被取消的代码生成次数")
+                .tag("codeGenType", codeGenType.getValue())
+                .register(meterRegistry)
+                .increment();
+    }
+
 }
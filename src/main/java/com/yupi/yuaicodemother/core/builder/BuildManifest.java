@@ -0,0 +1,21 @@
+package com.yupi.yuaicodemother.core.builder;
+
+import lombok.Data;
+
+/**
+ * Vue 项目构建清单
+ * 记录上次安装依赖和生成 dist 时的内容哈希，用于跳过重复的安装与构建
+ */
+@Data
+public class BuildManifest {
+
+    /**
+     * 已安装依赖对应的 package.json 与锁文件哈希
+     */
+    private String dependencyHash;
+
+    /**
+     * 生成当前 dist 的源码哈希（不含 node_modules 与 dist）
+     */
+    private String distSourceHash;
+}
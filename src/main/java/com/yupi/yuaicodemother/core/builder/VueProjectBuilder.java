@@ -1,34 +1,64 @@
 package com.yupi.yuaicodemother.core.builder;
 
+import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.RuntimeUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import com.yupi.yuaicodemother.constant.AppConstant;
+import com.yupi.yuaicodemother.utils.DirectoryHashUtils;
+import com.yupi.yuaicodemother.utils.PrecompressUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
 @Component
 public class VueProjectBuilder {
 
     /**
-     * 异步构建项目（不阻塞主线程）
-     *
-     * @param projectPath 项目路径
+     * 依赖缓存安装完成的标记文件
      */
-    public void buildProjectAsync(String projectPath) {
-        // 在单独的线程中执行构建，避免阻塞主线程
-        Thread.ofVirtual().name("vue-builder-" + System.currentTimeMillis()).start(() -> {
-            try {
-                buildProject(projectPath);
-            } catch (Exception e) {
-                log.error("异步构建 Vue 项目时发生异常：{}", e.getMessage(), e);
-            }
-        });
+    private static final String CACHE_COMPLETE_MARKER = ".install-complete";
 
-    }
+    /**
+     * 项目中可能存在的 npm 锁文件
+     */
+    private static final String PACKAGE_LOCK_JSON = "package-lock.json";
 
+    /**
+     * 计算源码哈希时跳过的目录
+     */
+    private static final Set<String> SOURCE_HASH_EXCLUDED_DIRS = Set.of("node_modules", "dist");
 
+    /**
+     * 依赖缓存最多保留的条目数，超出时按最近使用时间清理没有项目引用的条目
+     */
+    private static final int MAX_CACHE_ENTRIES = 20;
+
+    /**
+     * 没有项目引用的依赖缓存超过该时长未使用时清理
+     */
+    private static final Duration CACHE_MAX_IDLE = Duration.ofDays(7);
+
+    /**
+     * 依赖哈希 -> 安装锁，同一份依赖只安装一次
+     */
+    private final ConcurrentHashMap<String, ReentrantLock> installLocks = new ConcurrentHashMap<>();
 
     /**
      * 构建 Vue 项目
@@ -49,10 +79,30 @@ public class VueProjectBuilder {
             return false;
         }
         log.info("开始构建 Vue 项目: {}", projectPath);
-        // 执行 npm install
-        if (!executeNpmInstall(projectDir)) {
-            log.error("npm install 执行失败");
-            return false;
+        BuildManifest manifest = readManifest(projectDir);
+        // 安装依赖：依赖未变化且 node_modules 仍可用时跳过
+        String dependencyHash = computeDependencyHashQuietly(projectDir);
+        boolean dependencyUnchanged = dependencyHash != null
+                && dependencyHash.equals(manifest.getDependencyHash())
+                && new File(projectDir, "node_modules").isDirectory();
+        if (dependencyUnchanged) {
+            log.info("依赖未变化，跳过安装: {}", projectPath);
+        } else {
+            // 安装依赖（优先复用共享的依赖缓存）
+            if (!installDependencies(projectDir, dependencyHash)) {
+                log.error("npm install 执行失败");
+                return false;
+            }
+            manifest.setDependencyHash(dependencyHash);
+            manifest.setDistSourceHash(null);
+            writeManifest(projectDir, manifest);
+        }
+        // 源码未变化且 dist 仍存在时跳过构建
+        File distDir = new File(projectDir, "dist");
+        String sourceHash = computeSourceHashQuietly(projectDir);
+        if (sourceHash != null && sourceHash.equals(manifest.getDistSourceHash()) && distDir.isDirectory()) {
+            log.info("源码未变化，跳过构建，dist 目录: {}", distDir.getAbsolutePath());
+            return true;
         }
         // 执行 npm run build
         if (!executeNpmBuild(projectDir)) {
@@ -60,15 +110,257 @@ public class VueProjectBuilder {
             return false;
         }
         // 验证 dist 目录是否生成
-        File distDir = new File(projectDir, "dist");
         if (!distDir.exists()) {
             log.error("构建完成但 dist 目录未生成: {}", distDir.getAbsolutePath());
             return false;
         }
+        // 为构建产物生成预压缩文件
+        PrecompressUtils.precompressDirectory(distDir.toPath());
+        manifest.setDistSourceHash(sourceHash);
+        writeManifest(projectDir, manifest);
         log.info("Vue 项目构建成功，dist 目录: {}", distDir.getAbsolutePath());
         return true;
     }
 
+    /**
+     * 计算项目源码哈希（不含 node_modules 与 dist），失败时返回 null（不跳过构建）
+     */
+    private String computeSourceHashQuietly(File projectDir) {
+        try {
+            return DirectoryHashUtils.hashDirectory(projectDir.toPath(), SOURCE_HASH_EXCLUDED_DIRS);
+        } catch (IOException e) {
+            log.warn("计算源码哈希失败: {}, 错误信息: {}", projectDir.getAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 计算依赖哈希，失败时返回 null（不使用依赖缓存，也不跳过安装）
+     */
+    private String computeDependencyHashQuietly(File projectDir) {
+        try {
+            return computeDependencyHash(projectDir);
+        } catch (IOException e) {
+            log.warn("计算依赖哈希失败: {}, 错误信息: {}", projectDir.getAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 读取构建清单，不存在或损坏时返回空清单
+     */
+    private BuildManifest readManifest(File projectDir) {
+        File manifestFile = getManifestFile(projectDir);
+        if (!manifestFile.isFile()) {
+            return new BuildManifest();
+        }
+        try {
+            return JSONUtil.toBean(FileUtil.readUtf8String(manifestFile), BuildManifest.class);
+        } catch (Exception e) {
+            log.warn("读取构建清单失败，将重新构建: {}", manifestFile.getAbsolutePath());
+            return new BuildManifest();
+        }
+    }
+
+    private void writeManifest(File projectDir, BuildManifest manifest) {
+        FileUtil.writeUtf8String(JSONUtil.toJsonStr(manifest), getManifestFile(projectDir));
+    }
+
+    private File getManifestFile(File projectDir) {
+        return new File(AppConstant.BUILD_MANIFEST_ROOT_DIR, projectDir.getName() + ".json");
+    }
+
+
+    /**
+     * 安装项目依赖
+     * 依赖缓存按 package.json 与锁文件内容的哈希分目录存放，命中时直接把缓存的 node_modules
+     * 以符号链接挂到项目下；未命中时在缓存目录中安装一次，再挂到项目下。
+     * 缓存不可用（如无法创建符号链接）时回退为在项目目录中直接安装。
+     * 新增缓存条目后，清理没有项目引用且长期未使用的旧条目。
+     *
+     * @param projectDir     项目根目录
+     * @param dependencyHash 依赖哈希，为 null 时不使用缓存
+     * @return 是否安装成功
+     */
+    private boolean installDependencies(File projectDir, String dependencyHash) {
+        if (dependencyHash == null) {
+            return executeNpmInstall(projectDir);
+        }
+        File cacheDir = new File(AppConstant.NPM_CACHE_ROOT_DIR, dependencyHash);
+        // 同一哈希的安装、挂载与清理互斥，挂载过程中缓存不会被清理
+        ReentrantLock lock = installLocks.computeIfAbsent(dependencyHash, key -> new ReentrantLock());
+        boolean cacheMiss = false;
+        boolean linked = false;
+        lock.lock();
+        try {
+            cacheMiss = !isCacheReady(cacheDir);
+            if (cacheMiss && !installIntoCache(projectDir, cacheDir)) {
+                log.warn("依赖缓存安装失败，回退为项目内安装: {}", projectDir.getAbsolutePath());
+            } else {
+                linkNodeModules(projectDir, cacheDir);
+                // 记录最近使用时间，供清理缓存时排序
+                Files.setLastModifiedTime(cacheDir.toPath().resolve(CACHE_COMPLETE_MARKER),
+                        FileTime.fromMillis(System.currentTimeMillis()));
+                linked = true;
+                log.info("已复用依赖缓存 {}，项目: {}", dependencyHash, projectDir.getAbsolutePath());
+            }
+        } catch (Exception e) {
+            log.warn("依赖缓存不可用，回退为项目内安装: {}, 错误信息: {}", projectDir.getAbsolutePath(), e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+        if (!linked) {
+            return executeNpmInstall(projectDir);
+        }
+        // 新增了缓存条目，清理不再使用的旧条目
+        if (cacheMiss) {
+            pruneDependencyCache();
+        }
+        return true;
+    }
+
+    /**
+     * 计算依赖哈希（package.json 与 package-lock.json 的内容）
+     */
+    private String computeDependencyHash(File projectDir) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(Files.readAllBytes(new File(projectDir, "package.json").toPath()));
+        File packageLock = new File(projectDir, PACKAGE_LOCK_JSON);
+        if (packageLock.isFile()) {
+            content.write(0);
+            content.write(Files.readAllBytes(packageLock.toPath()));
+        }
+        return DigestUtil.sha256Hex(content.toByteArray());
+    }
+
+    private boolean isCacheReady(File cacheDir) {
+        return new File(cacheDir, CACHE_COMPLETE_MARKER).exists()
+                && new File(cacheDir, "node_modules").isDirectory();
+    }
+
+    /**
+     * 在缓存目录中安装依赖（调用方需持有该哈希的安装锁，同一哈希只允许一个安装进程）
+     */
+    private boolean installIntoCache(File projectDir, File cacheDir) {
+        // 清理上次中断留下的半成品
+        FileUtil.del(cacheDir);
+        FileUtil.mkdir(cacheDir);
+        FileUtil.copy(new File(projectDir, "package.json"), cacheDir, true);
+        File packageLock = new File(projectDir, PACKAGE_LOCK_JSON);
+        if (packageLock.isFile()) {
+            FileUtil.copy(packageLock, cacheDir, true);
+        }
+        log.info("依赖缓存未命中，安装到缓存目录: {}", cacheDir.getAbsolutePath());
+        String command = String.format("%s install --prefer-offline --no-audit --no-fund", buildCommand("npm"));
+        if (!executeCommand(cacheDir, command, 300)) {
+            FileUtil.del(cacheDir);
+            return false;
+        }
+        FileUtil.touch(new File(cacheDir, CACHE_COMPLETE_MARKER));
+        return true;
+    }
+
+    /**
+     * 清理依赖缓存：没有项目引用的条目超过最长闲置时间，或条目总数超出上限时按最近使用时间从旧到新清理
+     * 正在安装或挂载的条目（安装锁被占用）以及扫描后又被使用过的条目会跳过
+     */
+    private void pruneDependencyCache() {
+        File[] entries = new File(AppConstant.NPM_CACHE_ROOT_DIR).listFiles(File::isDirectory);
+        if (entries == null) {
+            return;
+        }
+        Set<Path> linkedTargets = collectLinkedCacheTargets();
+        List<File> candidates = Arrays.stream(entries)
+                .filter(entry -> !linkedTargets.contains(getCachedNodeModules(entry)))
+                .sorted(Comparator.comparingLong(this::getLastUsedMillis))
+                .toList();
+        long idleBefore = System.currentTimeMillis() - CACHE_MAX_IDLE.toMillis();
+        int excess = entries.length - MAX_CACHE_ENTRIES;
+        for (File entry : candidates) {
+            long lastUsedMillis = getLastUsedMillis(entry);
+            // 按最近使用时间从旧到新遍历，之后的条目既未闲置过久也无需为数量让位
+            if (lastUsedMillis >= idleBefore && excess <= 0) {
+                break;
+            }
+            if (evictCacheEntry(entry, lastUsedMillis)) {
+                excess--;
+            }
+        }
+    }
+
+    /**
+     * 在安装锁内删除依赖缓存条目，锁被占用或扫描后被使用过时放弃
+     *
+     * @return 是否已删除
+     */
+    private boolean evictCacheEntry(File entry, long lastUsedMillis) {
+        ReentrantLock lock = installLocks.computeIfAbsent(entry.getName(), key -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (getLastUsedMillis(entry) != lastUsedMillis) {
+                return false;
+            }
+            FileUtil.del(entry);
+            log.info("清理依赖缓存: {}", entry.getAbsolutePath());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 收集所有项目的 node_modules 符号链接指向的缓存目录
+     */
+    private Set<Path> collectLinkedCacheTargets() {
+        Set<Path> linkedTargets = new HashSet<>();
+        File[] projectDirs = new File(AppConstant.CODE_OUTPUT_ROOT_DIR).listFiles(File::isDirectory);
+        if (projectDirs == null) {
+            return linkedTargets;
+        }
+        for (File projectDir : projectDirs) {
+            Path link = projectDir.toPath().resolve("node_modules");
+            if (!Files.isSymbolicLink(link)) {
+                continue;
+            }
+            try {
+                linkedTargets.add(Files.readSymbolicLink(link).toAbsolutePath().normalize());
+            } catch (IOException e) {
+                log.warn("读取 node_modules 链接失败: {}, 错误信息: {}", link, e.getMessage());
+            }
+        }
+        return linkedTargets;
+    }
+
+    private Path getCachedNodeModules(File cacheDir) {
+        return cacheDir.toPath().resolve("node_modules").toAbsolutePath().normalize();
+    }
+
+    /**
+     * 缓存条目的最近使用时间（安装完成标记的修改时间，未安装完成时取目录的修改时间）
+     */
+    private long getLastUsedMillis(File cacheDir) {
+        File marker = new File(cacheDir, CACHE_COMPLETE_MARKER);
+        return marker.isFile() ? marker.lastModified() : cacheDir.lastModified();
+    }
+
+    /**
+     * 将缓存的 node_modules 以符号链接挂到项目下（替换项目中已有的 node_modules）
+     */
+    private void linkNodeModules(File projectDir, File cacheDir) throws IOException {
+        Path link = projectDir.toPath().resolve("node_modules");
+        Path target = cacheDir.toPath().resolve("node_modules").toAbsolutePath();
+        if (Files.isSymbolicLink(link)) {
+            if (Files.readSymbolicLink(link).equals(target)) {
+                return;
+            }
+            Files.delete(link);
+        } else if (Files.exists(link)) {
+            FileUtil.del(link);
+        }
+        Files.createSymbolicLink(link, target);
+    }
 
     /**
      * 执行命令
@@ -112,7 +404,17 @@ public class VueProjectBuilder {
      */
     private boolean executeNpmInstall(File projectDir) {
         log.info("执行 npm install...");
-        String command = String.format("%s install", buildCommand("npm"));
+        // 回退安装前先断开指向共享缓存的链接，避免写坏缓存
+        Path nodeModules = projectDir.toPath().resolve("node_modules");
+        if (Files.isSymbolicLink(nodeModules)) {
+            try {
+                Files.delete(nodeModules);
+            } catch (IOException e) {
+                log.error("删除 node_modules 链接失败: {}", e.getMessage());
+                return false;
+            }
+        }
+        String command = String.format("%s install --prefer-offline", buildCommand("npm"));
         return executeCommand(projectDir, command, 300); // 5分钟超时
     }
 
@@ -7,11 +7,11 @@ import cn.hutool.json.JSONUtil;
 import com.yupi.yuaicodemother.ai.model.message.*;
 import com.yupi.yuaicodemother.ai.tools.BaseTool;
 import com.yupi.yuaicodemother.ai.tools.ToolManager;
-import com.yupi.yuaicodemother.constant.AppConstant;
-import com.yupi.yuaicodemother.core.builder.VueProjectBuilder;
 import com.yupi.yuaicodemother.model.entity.User;
 import com.yupi.yuaicodemother.model.enums.ChatHistoryMessageTypeEnum;
+import com.yupi.yuaicodemother.model.enums.JobPriorityEnum;
 import com.yupi.yuaicodemother.service.ChatHistoryService;
+import com.yupi.yuaicodemother.service.VueBuildService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -29,7 +29,7 @@ import java.util.Set;
 public class JsonMessageStreamHandler {
 
     @Resource
-    private VueProjectBuilder vueProjectBuilder;
+    private VueBuildService vueBuildService;
 
     @Resource
     private ToolManager toolManager;
@@ -44,7 +44,7 @@ public class JsonMessageStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         // 收集数据用于生成后端记忆格式
@@ -52,18 +52,17 @@ public class JsonMessageStreamHandler {
         // 用于跟踪已经见过的工具ID，判断是否是第一次调用
         Set<String> seenToolIds = new HashSet<>();
         return originFlux
-                .map(chunk -> {
-                    // 解析每个 JSON 消息块
-                    return handleJsonMessageChunk(chunk, chatHistoryStringBuilder, seenToolIds);
+                .map(streamMessage -> {
+                    // 处理每条类型化的消息
+                    return handleStreamMessage(streamMessage, chatHistoryStringBuilder, seenToolIds);
                 })
                 .filter(StrUtil::isNotEmpty) // 过滤空字串
                 .doOnComplete(() -> {
                     // 流式响应完成后，添加 AI 消息到对话历史
                     String aiResponse = chatHistoryStringBuilder.toString();
                     chatHistoryService.addChatMessage(appId, aiResponse, ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
-                    // 异步构造vue项目
-                    String projectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + "/vue_project_" + appId;
-                    vueProjectBuilder.buildProjectAsync(projectPath);
+                    // 异步构造vue项目（同一项目的构建由构建服务合并）
+                    vueBuildService.submitBuild(appId, JobPriorityEnum.BACKGROUND);
                 })
                 .doOnError(error -> {
                     // 如果AI回复失败，也要记录错误消息
@@ -73,22 +72,17 @@ public class JsonMessageStreamHandler {
     }
 
     /**
-     * 解析并收集 TokenStream 数据
+     * 处理并收集 TokenStream 数据（消息在进程内保持类型化，无需 JSON 序列化和反序列化）
      */
-    private String handleJsonMessageChunk(String chunk, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
-        // 解析 JSON
-        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
-        StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
-        switch (typeEnum) {
-            case AI_RESPONSE -> {
-                AiResponseMessage aiMessage = JSONUtil.toBean(chunk, AiResponseMessage.class);
+    private String handleStreamMessage(StreamMessage streamMessage, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
+        switch (streamMessage) {
+            case AiResponseMessage aiMessage -> {
                 String data = aiMessage.getData();
                 // 直接拼接响应
                 chatHistoryStringBuilder.append(data);
                 return data;
             }
-            case TOOL_REQUEST -> {
-                ToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, ToolRequestMessage.class);
+            case ToolRequestMessage toolRequestMessage -> {
                 String toolId = toolRequestMessage.getId();
                 String toolName = toolRequestMessage.getName();
                 // 检查是否是第一次看到这个工具 ID
@@ -104,8 +98,7 @@ public class JsonMessageStreamHandler {
                     return "";
                 }
             }
-            case TOOL_EXECUTED -> {
-                ToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, ToolExecutedMessage.class);
+            case ToolExecutedMessage toolExecutedMessage -> {
                 String toolName = toolExecutedMessage.getName();
                 JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
                 // 根据工具名称获取工具实例并生成相应的结果格式
@@ -117,7 +110,7 @@ public class JsonMessageStreamHandler {
                 return output;
             }
             default -> {
-                log.error("不支持的消息类型: {}", typeEnum);
+                log.error("不支持的消息类型: {}", streamMessage.getType());
                 return "";
             }
         }
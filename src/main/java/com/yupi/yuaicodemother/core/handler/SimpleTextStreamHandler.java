@@ -1,5 +1,7 @@
 package com.yupi.yuaicodemother.core.handler;
 
+import com.yupi.yuaicodemother.ai.model.message.AiResponseMessage;
+import com.yupi.yuaicodemother.ai.model.message.StreamMessage;
 import com.yupi.yuaicodemother.model.entity.User;
 import com.yupi.yuaicodemother.model.enums.ChatHistoryMessageTypeEnum;
 import com.yupi.yuaicodemother.service.ChatHistoryService;
@@ -23,13 +25,15 @@ public class SimpleTextStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         StringBuilder aiResponseBuilder = new StringBuilder();
         return originFlux
-                .map(chunk -> {
+                .ofType(AiResponseMessage.class)
+                .map(aiResponseMessage -> {
                     // 收集AI响应内容
+                    String chunk = aiResponseMessage.getData();
                     aiResponseBuilder.append(chunk);
                     return chunk;
                 })
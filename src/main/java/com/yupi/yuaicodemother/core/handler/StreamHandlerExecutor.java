@@ -1,5 +1,6 @@
 package com.yupi.yuaicodemother.core.handler;
 
+import com.yupi.yuaicodemother.ai.model.message.StreamMessage;
 import com.yupi.yuaicodemother.model.entity.User;
 import com.yupi.yuaicodemother.model.enums.CodeGenTypeEnum;
 import com.yupi.yuaicodemother.service.ChatHistoryService;
@@ -11,8 +12,8 @@ import reactor.core.publisher.Flux;
 /**
  * 流处理器执行器
  * 根据代码生成类型创建合适的流处理器：
- * 1. 传统的 Flux<String> 流（HTML、MULTI_FILE） -> SimpleTextStreamHandler
- * 2. TokenStream 格式的复杂流（VUE_PROJECT） -> JsonMessageStreamHandler
+ * 1. 纯文本响应流（HTML、MULTI_FILE） -> SimpleTextStreamHandler
+ * 2. 包含工具调用的复杂流（VUE_PROJECT） -> JsonMessageStreamHandler
  */
 @Slf4j
 @Component
@@ -31,7 +32,7 @@ public class StreamHandlerExecutor {
      * @param codeGenType        代码生成类型
      * @return 处理后的流
      */
-    public Flux<String> doExecute(Flux<String> originFlux,
+    public Flux<String> doExecute(Flux<StreamMessage> originFlux,
                                   ChatHistoryService chatHistoryService,
                                   long appId, User loginUser, CodeGenTypeEnum codeGenType) {
         return switch (codeGenType) {
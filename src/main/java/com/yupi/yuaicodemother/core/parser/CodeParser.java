@@ -12,5 +12,18 @@ public interface CodeParser<T> {
      * @param codeContent 原始代码内容
      * @return 解析后的结果对象
      */
-    T parseCode(String codeContent);
+    default T parseCode(String codeContent) {
+        StreamingCodeParser streamingCodeParser = new StreamingCodeParser();
+        streamingCodeParser.feed(codeContent);
+        streamingCodeParser.finish();
+        return parseCode(streamingCodeParser);
+    }
+
+    /**
+     * 根据流式解析器已识别的代码块构建结果对象
+     *
+     * @param streamingCodeParser 已结束输入的流式解析器
+     * @return 解析后的结果对象
+     */
+    T parseCode(StreamingCodeParser streamingCodeParser);
 }
@@ -29,4 +29,19 @@ public class CodeParserExecutor {
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
         };
     }
+
+    /**
+     * 根据流式解析器的解析结果构建结果对象
+     *
+     * @param streamingCodeParser 已结束输入的流式解析器
+     * @param codeGenType         代码生成类型
+     * @return 解析结果（HtmlCodeResult 或 MultiFileCodeResult）
+     */
+    public static Object executeParser(StreamingCodeParser streamingCodeParser, CodeGenTypeEnum codeGenType) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeParser.parseCode(streamingCodeParser);
+            case MULTI_FILE -> multiFileCodeParser.parseCode(streamingCodeParser);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
 }
@@ -1,9 +1,7 @@
 package com.yupi.yuaicodemother.core.parser;
 
 import com.yupi.yuaicodemother.ai.model.HtmlCodeResult;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.yupi.yuaicodemother.model.enums.CodeBlockTypeEnum;
 
 /**
  * HTML 单文件代码解析器
@@ -11,34 +9,18 @@ import java.util.regex.Pattern;
  */
 public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-
     @Override
-    public HtmlCodeResult parseCode(String codeContent) {
+    public HtmlCodeResult parseCode(StreamingCodeParser streamingCodeParser) {
         HtmlCodeResult result = new HtmlCodeResult();
         // 提取 HTML 代码
-        String htmlCode = extractHtmlCode(codeContent);
+        String htmlCode = streamingCodeParser.getBlockContent(CodeBlockTypeEnum.HTML);
         if (htmlCode != null && !htmlCode.trim().isEmpty()) {
-            result.setHtmlCode(htmlCode.trim());
+            result.setHtmlCode(htmlCode);
         } else {
             // 如果没有找到代码块，将整个内容作为HTML
-            result.setHtmlCode(codeContent.trim());
+            String plainText = streamingCodeParser.getPlainText();
+            result.setHtmlCode(plainText == null ? "" : plainText.trim());
         }
         return result;
     }
-
-    /**
-     * 提取HTML代码内容
-     *
-     * @param content 原始内容
-     * @return HTML代码
-     */
-    private String extractHtmlCode(String content) {
-        Matcher matcher = HTML_CODE_PATTERN.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
-    }
 }
-
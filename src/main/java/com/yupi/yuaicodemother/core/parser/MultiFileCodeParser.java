@@ -1,9 +1,7 @@
 package com.yupi.yuaicodemother.core.parser;
 
 import com.yupi.yuaicodemother.ai.model.MultiFileCodeResult;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.yupi.yuaicodemother.model.enums.CodeBlockTypeEnum;
 
 /**
  * 多文件代码解析器（HTML + CSS + JS）
@@ -11,44 +9,25 @@ import java.util.regex.Pattern;
  */
 public class MultiFileCodeParser implements CodeParser<MultiFileCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-
     @Override
-    public MultiFileCodeResult parseCode(String codeContent) {
+    public MultiFileCodeResult parseCode(StreamingCodeParser streamingCodeParser) {
         MultiFileCodeResult result = new MultiFileCodeResult();
         // 提取各类代码
-        String htmlCode = extractCodeByPattern(codeContent, HTML_CODE_PATTERN);
-        String cssCode = extractCodeByPattern(codeContent, CSS_CODE_PATTERN);
-        String jsCode = extractCodeByPattern(codeContent, JS_CODE_PATTERN);
+        String htmlCode = streamingCodeParser.getBlockContent(CodeBlockTypeEnum.HTML);
+        String cssCode = streamingCodeParser.getBlockContent(CodeBlockTypeEnum.CSS);
+        String jsCode = streamingCodeParser.getBlockContent(CodeBlockTypeEnum.JS);
         // 设置HTML代码
         if (htmlCode != null && !htmlCode.trim().isEmpty()) {
-            result.setHtmlCode(htmlCode.trim());
+            result.setHtmlCode(htmlCode);
         }
         // 设置CSS代码
         if (cssCode != null && !cssCode.trim().isEmpty()) {
-            result.setCssCode(cssCode.trim());
+            result.setCssCode(cssCode);
         }
         // 设置JS代码
         if (jsCode != null && !jsCode.trim().isEmpty()) {
-            result.setJsCode(jsCode.trim());
+            result.setJsCode(jsCode);
         }
         return result;
     }
-
-    /**
-     * 根据正则模式提取代码
-     *
-     * @param content 原始内容
-     * @param pattern 正则模式
-     * @return 提取的代码
-     */
-    private String extractCodeByPattern(String content, Pattern pattern) {
-        Matcher matcher = pattern.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
-    }
 }
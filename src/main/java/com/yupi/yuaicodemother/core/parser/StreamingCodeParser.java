@@ -0,0 +1,354 @@
+package com.yupi.yuaicodemother.core.parser;
+
+import com.yupi.yuaicodemother.model.enums.CodeBlockTypeEnum;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流式代码解析器（推送式状态机）
+ * <p>
+ * AI 输出的片段到达后直接推入，解析器逐字符识别 ```html / ```css / ```js 代码块，
+ * 并以事件的形式实时输出代码块内容，整个响应只需线性扫描一次。
+ * 解析规则与原先的正则保持一致：每种类型只取第一个代码块，内容去除首尾空白，
+ * 语言标识后必须换行才视为代码块开始。
+ * <p>
+ * 非线程安全，一个实例只用于解析一次响应。
+ */
+public class StreamingCodeParser {
+
+    /**
+     * 代码块事件监听器
+     */
+    public interface Listener {
+
+        /**
+         * 代码块开始
+         *
+         * @param blockType 代码块类型
+         */
+        default void onBlockStart(CodeBlockTypeEnum blockType) {
+        }
+
+        /**
+         * 代码块内容片段（已去除首尾空白，按到达顺序拼接即为完整内容）
+         *
+         * @param blockType 代码块类型
+         * @param content   内容片段
+         */
+        default void onBlockContent(CodeBlockTypeEnum blockType, String content) {
+        }
+
+        /**
+         * 代码块结束
+         *
+         * @param blockType 代码块类型
+         */
+        default void onBlockEnd(CodeBlockTypeEnum blockType) {
+        }
+    }
+
+    private static final Listener NO_OP_LISTENER = new Listener() {
+    };
+
+    /**
+     * 围栏由 3 个反引号组成
+     */
+    private static final int FENCE_LENGTH = 3;
+
+    /**
+     * 语言标识的最大长度，超出则不视为代码块
+     */
+    private static final int MAX_LANGUAGE_LENGTH = 16;
+
+    private enum State {
+        /**
+         * 代码块之外的普通文本
+         */
+        TEXT,
+        /**
+         * 读取围栏后的语言标识
+         */
+        FENCE_LANGUAGE,
+        /**
+         * 语言标识之后、代码内容之前的空白
+         */
+        FENCE_HEADER,
+        /**
+         * 代码块内部
+         */
+        BLOCK
+    }
+
+    private final Listener listener;
+
+    /**
+     * 是否在内存中保留代码块内容（仅以事件方式消费时可关闭）
+     */
+    private final boolean collectBlocks;
+
+    private final Map<CodeBlockTypeEnum, StringBuilder> blockContents = new EnumMap<>(CodeBlockTypeEnum.class);
+
+    private final Set<CodeBlockTypeEnum> openedBlocks = EnumSet.noneOf(CodeBlockTypeEnum.class);
+
+    private final Set<CodeBlockTypeEnum> completedBlocks = EnumSet.noneOf(CodeBlockTypeEnum.class);
+
+    private final StringBuilder languageBuilder = new StringBuilder();
+
+    /**
+     * 本次 feed 产生的待输出内容
+     */
+    private final StringBuilder outputBuffer = new StringBuilder();
+
+    /**
+     * 暂存的空白字符，遇到后续非空白字符才输出，从而去掉代码块末尾的空白
+     */
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+
+    /**
+     * 识别到 HTML 代码块之前的原始文本（含其他代码块），用于 HTML 模式没有 HTML 代码块时的兜底
+     */
+    private StringBuilder plainText = new StringBuilder();
+
+    private State state = State.TEXT;
+
+    private int backtickCount;
+
+    private boolean headerHasNewline;
+
+    /**
+     * 当前代码块类型，为 null 表示当前代码块不需要输出（未知语言或重复类型）
+     */
+    private CodeBlockTypeEnum currentBlockType;
+
+    private boolean contentStarted;
+
+    private boolean finished;
+
+    public StreamingCodeParser() {
+        this(NO_OP_LISTENER, true);
+    }
+
+    public StreamingCodeParser(Listener listener, boolean collectBlocks) {
+        this.listener = listener == null ? NO_OP_LISTENER : listener;
+        this.collectBlocks = collectBlocks;
+    }
+
+    /**
+     * 推入一段新到达的内容
+     *
+     * @param chunk 内容片段
+     */
+    public void feed(String chunk) {
+        if (finished) {
+            throw new IllegalStateException("解析器已结束，不能继续输入");
+        }
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < chunk.length(); i++) {
+            processChar(chunk.charAt(i));
+        }
+        flushOutput();
+    }
+
+    /**
+     * 输入结束，未闭合的代码块视为在结尾处闭合
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (state == State.BLOCK) {
+            closeBlock();
+        }
+        state = State.TEXT;
+    }
+
+    /**
+     * 获取指定类型代码块的完整内容
+     *
+     * @param blockType 代码块类型
+     * @return 代码块内容，不存在或未开启收集时返回 null
+     */
+    public String getBlockContent(CodeBlockTypeEnum blockType) {
+        StringBuilder content = blockContents.get(blockType);
+        return content == null ? null : content.toString();
+    }
+
+    /**
+     * 是否识别到了指定类型的代码块
+     */
+    public boolean hasBlock(CodeBlockTypeEnum blockType) {
+        return openedBlocks.contains(blockType);
+    }
+
+    /**
+     * 指定类型的代码块是否已完整结束
+     */
+    public boolean isBlockCompleted(CodeBlockTypeEnum blockType) {
+        return completedBlocks.contains(blockType);
+    }
+
+    /**
+     * 获取没有识别到 HTML 代码块时的原始文本
+     *
+     * @return 原始文本，已识别到 HTML 代码块时返回 null
+     */
+    public String getPlainText() {
+        return plainText == null ? null : plainText.toString();
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private void processChar(char c) {
+        switch (state) {
+            case TEXT -> handleText(c);
+            case FENCE_LANGUAGE -> handleFenceLanguage(c);
+            case FENCE_HEADER -> handleFenceHeader(c);
+            case BLOCK -> handleBlock(c);
+        }
+    }
+
+    private void handleText(char c) {
+        appendPlainText(c);
+        if (c != '`') {
+            backtickCount = 0;
+            return;
+        }
+        if (++backtickCount == FENCE_LENGTH) {
+            backtickCount = 0;
+            languageBuilder.setLength(0);
+            state = State.FENCE_LANGUAGE;
+        }
+    }
+
+    private void handleFenceLanguage(char c) {
+        if (Character.isWhitespace(c)) {
+            appendPlainText(c);
+            headerHasNewline = c == '\n';
+            state = State.FENCE_HEADER;
+        } else if (isLanguageChar(c) && languageBuilder.length() < MAX_LANGUAGE_LENGTH) {
+            appendPlainText(c);
+            languageBuilder.append(c);
+        } else {
+            // 不是合法的围栏，按普通文本重新处理当前字符
+            state = State.TEXT;
+            handleText(c);
+        }
+    }
+
+    private void handleFenceHeader(char c) {
+        if (Character.isWhitespace(c)) {
+            appendPlainText(c);
+            headerHasNewline |= c == '\n';
+            return;
+        }
+        if (!headerHasNewline) {
+            // 语言标识后没有换行，不视为代码块
+            state = State.TEXT;
+            handleText(c);
+            return;
+        }
+        openBlock();
+        handleBlock(c);
+    }
+
+    private void handleBlock(char c) {
+        appendPlainText(c);
+        if (c == '`') {
+            if (++backtickCount == FENCE_LENGTH) {
+                closeBlock();
+            }
+            return;
+        }
+        // 不足 3 个的反引号属于代码内容
+        for (; backtickCount > 0; backtickCount--) {
+            appendContent('`');
+        }
+        appendContent(c);
+    }
+
+    private void openBlock() {
+        CodeBlockTypeEnum blockType = CodeBlockTypeEnum.getEnumByLanguage(languageBuilder.toString());
+        // 每种类型只处理第一个代码块，未知语言和重复的代码块整体跳过
+        currentBlockType = blockType != null && openedBlocks.add(blockType) ? blockType : null;
+        backtickCount = 0;
+        contentStarted = false;
+        pendingWhitespace.setLength(0);
+        state = State.BLOCK;
+        if (currentBlockType == CodeBlockTypeEnum.HTML) {
+            plainText = null;
+        }
+        if (currentBlockType != null) {
+            if (collectBlocks) {
+                blockContents.put(currentBlockType, new StringBuilder());
+            }
+            listener.onBlockStart(currentBlockType);
+        }
+    }
+
+    private void closeBlock() {
+        flushOutput();
+        // 丢弃代码块末尾的空白
+        pendingWhitespace.setLength(0);
+        backtickCount = 0;
+        state = State.TEXT;
+        if (currentBlockType != null) {
+            completedBlocks.add(currentBlockType);
+            listener.onBlockEnd(currentBlockType);
+            currentBlockType = null;
+        }
+    }
+
+    private void appendContent(char c) {
+        if (currentBlockType == null) {
+            return;
+        }
+        boolean whitespace = Character.isWhitespace(c);
+        if (!contentStarted) {
+            // 丢弃代码块开头的空白
+            if (whitespace) {
+                return;
+            }
+            contentStarted = true;
+        }
+        if (whitespace) {
+            pendingWhitespace.append(c);
+            return;
+        }
+        if (!pendingWhitespace.isEmpty()) {
+            outputBuffer.append(pendingWhitespace);
+            pendingWhitespace.setLength(0);
+        }
+        outputBuffer.append(c);
+    }
+
+    private void flushOutput() {
+        if (currentBlockType == null || outputBuffer.isEmpty()) {
+            outputBuffer.setLength(0);
+            return;
+        }
+        String content = outputBuffer.toString();
+        outputBuffer.setLength(0);
+        if (collectBlocks) {
+            blockContents.get(currentBlockType).append(content);
+        }
+        listener.onBlockContent(currentBlockType, content);
+    }
+
+    private void appendPlainText(char c) {
+        if (plainText != null) {
+            plainText.append(c);
+        }
+    }
+
+    private static boolean isLanguageChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '_' || c == '#' || c == '.';
+    }
+}
@@ -32,4 +32,19 @@ public class CodeFileSaverExecutor {
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType );
         };
     }
+
+    /**
+     * 创建流式保存器
+     *
+     * @param codeGenType 代码生成类型
+     * @param appId       应用 ID
+     * @return 流式代码文件写入器
+     */
+    public static StreamingCodeFileWriter createStreamingWriter(CodeGenTypeEnum codeGenType, Long appId) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeFileSaverTemplate.createStreamingWriter(appId);
+            case MULTI_FILE -> multiCodeFileSaverTemplate.createStreamingWriter(appId);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
 }
@@ -6,10 +6,14 @@ import cn.hutool.core.util.StrUtil;
 import com.yupi.yuaicodemother.constant.AppConstant;
 import com.yupi.yuaicodemother.exception.BusinessException;
 import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.model.enums.CodeBlockTypeEnum;
 import com.yupi.yuaicodemother.model.enums.CodeGenTypeEnum;
+import com.yupi.yuaicodemother.utils.PrecompressUtils;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Set;
 
 /**
  * 抽象代码文件保存器 - 模板方法模式
@@ -38,6 +42,17 @@ public abstract class CodeFileSaverTemplate<T> {
         return new File(baseDirPath);
     }
 
+    /**
+     * 创建流式保存器：代码块随 AI 输出逐步写入临时文件，代码块结束时原子替换为最终文件
+     *
+     * @param appId 应用 ID
+     * @return 可作为流式解析器监听器的写入器
+     */
+    public final StreamingCodeFileWriter createStreamingWriter(Long appId) {
+        String baseDirPath = buildUniqueDir(appId);
+        return new StreamingCodeFileWriter(baseDirPath, getSupportedBlockTypes());
+    }
+
     /**
      * 构建基于 appId 的目录路径
      *
@@ -80,6 +95,8 @@ public abstract class CodeFileSaverTemplate<T> {
         if (StrUtil.isNotBlank(content)) {
             String filePath = dirPath + File.separator + filename;
             FileUtil.writeString(content, filePath, StandardCharsets.UTF_8);
+            // 生成预压缩文件，避免每次请求时压缩
+            PrecompressUtils.precompress(Paths.get(filePath));
         }
     }
 
@@ -90,6 +107,13 @@ public abstract class CodeFileSaverTemplate<T> {
      */
     protected abstract CodeGenTypeEnum getCodeType();
 
+    /**
+     * 获取流式保存时需要写入文件的代码块类型（由子类实现）
+     *
+     * @return 代码块类型集合
+     */
+    protected abstract Set<CodeBlockTypeEnum> getSupportedBlockTypes();
+
     /**
      * 保存文件的具体实现（由子类实现）
      *
@@ -4,8 +4,12 @@ import cn.hutool.core.util.StrUtil;
 import com.yupi.yuaicodemother.ai.model.HtmlCodeResult;
 import com.yupi.yuaicodemother.exception.BusinessException;
 import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.model.enums.CodeBlockTypeEnum;
 import com.yupi.yuaicodemother.model.enums.CodeGenTypeEnum;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * HTML文件保存器
  *
@@ -17,6 +21,11 @@ public class HtmlCodeFileSaverTemplate extends CodeFileSaverTemplate<HtmlCodeRes
         return CodeGenTypeEnum.HTML;
     }
 
+    @Override
+    protected Set<CodeBlockTypeEnum> getSupportedBlockTypes() {
+        return EnumSet.of(CodeBlockTypeEnum.HTML);
+    }
+
     @Override
     protected void saveFiles(HtmlCodeResult result, String baseDirPath) {
         // 保存html文件
@@ -4,8 +4,12 @@ import cn.hutool.core.util.StrUtil;
 import com.yupi.yuaicodemother.ai.model.MultiFileCodeResult;
 import com.yupi.yuaicodemother.exception.BusinessException;
 import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.model.enums.CodeBlockTypeEnum;
 import com.yupi.yuaicodemother.model.enums.CodeGenTypeEnum;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * 多文件代码保存器
  *
@@ -17,6 +21,11 @@ public class MultiCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiFileC
         return CodeGenTypeEnum.MULTI_FILE;
     }
 
+    @Override
+    protected Set<CodeBlockTypeEnum> getSupportedBlockTypes() {
+        return EnumSet.of(CodeBlockTypeEnum.HTML, CodeBlockTypeEnum.CSS, CodeBlockTypeEnum.JS);
+    }
+
     @Override
     protected void saveFiles(MultiFileCodeResult result, String baseDirPath) {
         // 保存html文件
@@ -0,0 +1,172 @@
+package com.yupi.yuaicodemother.core.saver;
+
+import cn.hutool.core.util.IdUtil;
+import com.yupi.yuaicodemother.core.parser.StreamingCodeParser;
+import com.yupi.yuaicodemother.model.enums.CodeBlockTypeEnum;
+import com.yupi.yuaicodemother.utils.PrecompressUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流式代码文件写入器
+ * <p>
+ * 作为流式解析器的监听器使用：代码块开始时在目标目录创建临时文件，内容到达时追加写入，
+ * 代码块结束时原子重命名为最终文件（如 index.html），预览页面始终只会读到完整的文件。
+ */
+@Slf4j
+public class StreamingCodeFileWriter implements StreamingCodeParser.Listener, AutoCloseable {
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final Path baseDir;
+
+    private final Set<CodeBlockTypeEnum> supportedBlockTypes;
+
+    private final Map<CodeBlockTypeEnum, Writer> openWriters = new EnumMap<>(CodeBlockTypeEnum.class);
+
+    private final Map<CodeBlockTypeEnum, Path> tempFiles = new EnumMap<>(CodeBlockTypeEnum.class);
+
+    private final Map<CodeBlockTypeEnum, Long> writtenChars = new EnumMap<>(CodeBlockTypeEnum.class);
+
+    private final Set<CodeBlockTypeEnum> savedBlocks = EnumSet.noneOf(CodeBlockTypeEnum.class);
+
+    public StreamingCodeFileWriter(String baseDirPath, Set<CodeBlockTypeEnum> supportedBlockTypes) {
+        this.baseDir = Path.of(baseDirPath);
+        this.supportedBlockTypes = supportedBlockTypes;
+    }
+
+    @Override
+    public void onBlockStart(CodeBlockTypeEnum blockType) {
+        if (!supportedBlockTypes.contains(blockType)) {
+            return;
+        }
+        // 临时文件以 . 开头并放在同一目录下，保证后续重命名是同一文件系统内的原子操作
+        Path tempFile = baseDir.resolve("." + blockType.getFileName() + "." + IdUtil.fastSimpleUUID() + TEMP_FILE_SUFFIX);
+        try {
+            openWriters.put(blockType, Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8));
+            tempFiles.put(blockType, tempFile);
+            writtenChars.put(blockType, 0L);
+        } catch (IOException e) {
+            log.error("创建临时文件失败: {}", tempFile, e);
+        }
+    }
+
+    @Override
+    public void onBlockContent(CodeBlockTypeEnum blockType, String content) {
+        Writer writer = openWriters.get(blockType);
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write(content);
+            writtenChars.merge(blockType, (long) content.length(), Long::sum);
+        } catch (IOException e) {
+            log.error("写入临时文件失败: {}", tempFiles.get(blockType), e);
+            discard(blockType);
+        }
+    }
+
+    @Override
+    public void onBlockEnd(CodeBlockTypeEnum blockType) {
+        Writer writer = openWriters.remove(blockType);
+        if (writer == null) {
+            return;
+        }
+        Path tempFile = tempFiles.remove(blockType);
+        try {
+            writer.close();
+            // 与原有保存逻辑一致，空代码块不生成文件
+            if (writtenChars.getOrDefault(blockType, 0L) == 0) {
+                Files.deleteIfExists(tempFile);
+                return;
+            }
+            Path targetFile = baseDir.resolve(blockType.getFileName());
+            moveAtomically(tempFile, targetFile);
+            PrecompressUtils.precompress(targetFile);
+            savedBlocks.add(blockType);
+            log.info("代码块已保存: {}", targetFile);
+        } catch (IOException e) {
+            log.error("保存代码块失败: {}", blockType.getFileName(), e);
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * 指定类型的代码块是否已写入最终文件
+     */
+    public boolean isSaved(CodeBlockTypeEnum blockType) {
+        return savedBlocks.contains(blockType);
+    }
+
+    /**
+     * 删除本次已写入的最终文件及其预压缩文件（输出不完整、不能作为站点保留时调用）
+     */
+    public void deleteSavedFiles() {
+        for (CodeBlockTypeEnum blockType : savedBlocks) {
+            Path targetFile = baseDir.resolve(blockType.getFileName());
+            deleteQuietly(targetFile);
+            deleteQuietly(targetFile.resolveSibling(targetFile.getFileName() + PrecompressUtils.GZIP_SUFFIX));
+            log.info("已删除不完整输出中的文件: {}", targetFile);
+        }
+        savedBlocks.clear();
+    }
+
+    /**
+     * 获取保存目录
+     */
+    public Path getBaseDir() {
+        return baseDir;
+    }
+
+    /**
+     * 关闭所有未完成的代码块并删除临时文件（流异常中断或被取消时调用）
+     */
+    @Override
+    public void close() {
+        for (CodeBlockTypeEnum blockType : Set.copyOf(openWriters.keySet())) {
+            discard(blockType);
+        }
+    }
+
+    private void discard(CodeBlockTypeEnum blockType) {
+        Writer writer = openWriters.remove(blockType);
+        Path tempFile = tempFiles.remove(blockType);
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("关闭临时文件失败: {}", tempFile, e);
+            }
+        }
+        if (tempFile != null) {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除文件失败: {}", path, e);
+        }
+    }
+}
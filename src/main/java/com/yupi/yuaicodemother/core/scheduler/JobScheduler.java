@@ -0,0 +1,446 @@
+package com.yupi.yuaicodemother.core.scheduler;
+
+import com.yupi.yuaicodemother.config.JobSchedulerConfig;
+import com.yupi.yuaicodemother.exception.BusinessException;
+import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.model.enums.JobPriorityEnum;
+import com.yupi.yuaicodemother.model.enums.JobTypeEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 优先级任务调度器
+ * <p>
+ * 代码生成、Vue 项目构建、网页截图共享同一个有界等待队列：
+ * 1. 总并发和各类任务的并发分别有上限，名额不足时任务进入等待队列；
+ *    总名额中为代码生成预留 generationMaxConcurrent 个，构建与截图合计只能使用其余名额
+ * 2. 有空闲名额时，从可执行的任务中选出有效优先级最高的任务，
+ *    有效优先级 = 基础优先级 + 等待秒数 × 老化速度，避免后台任务长期饿死
+ * 3. 代码生成任务有单用户上限，排队期间通过回调上报排队位置
+ * 4. 阻塞型任务（构建、截图）获得名额后在虚拟线程中执行
+ * <p>
+ * 排队位置回调通过 Reactor Context 传入（键为 {@link #QUEUE_POSITION_LISTENER}），
+ * 这样调用方无需改变生成流的签名即可把排队信息推送给客户端。
+ */
+@Slf4j
+@Component
+public class JobScheduler {
+
+    /**
+     * Reactor Context 中排队位置回调（IntConsumer）的键
+     */
+    public static final String QUEUE_POSITION_LISTENER = "job.queuePositionListener";
+
+    @Resource
+    private JobSchedulerConfig jobSchedulerConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final Object lock = new Object();
+
+    /**
+     * 所有类型任务共享的等待队列（按提交顺序）
+     */
+    private final List<Job> waitQueue = new ArrayList<>();
+
+    private final Map<JobTypeEnum, Integer> runningCount = new EnumMap<>(JobTypeEnum.class);
+
+    private final Map<Long, Integer> userActiveCount = new HashMap<>();
+
+    private int totalRunning;
+
+    @PostConstruct
+    public void initMetrics() {
+        for (JobTypeEnum jobType : JobTypeEnum.values()) {
+            Gauge.builder("job.queue.size", this, scheduler -> scheduler.getQueueSize(jobType))
+                    .description("等待执行的任务数")
+                    .tag("type", jobType.getValue())
+                    .register(meterRegistry);
+            Gauge.builder("job.running", this, scheduler -> scheduler.getRunningCount(jobType))
+                    .description("正在执行的任务数")
+                    .tag("type", jobType.getValue())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 提交流式任务（代码生成），获得执行名额后才会订阅实际的任务流
+     *
+     * @param jobType  任务类型
+     * @param priority 任务优先级
+     * @param userId   用户 ID，不为空时校验单用户上限
+     * @param task     任务（获得名额后调用）
+     * @return 任务流
+     */
+    public <T> Flux<T> submit(JobTypeEnum jobType, JobPriorityEnum priority, Long userId, Supplier<Flux<T>> task) {
+        return Flux.create(sink -> {
+            IntConsumer queuePositionListener = sink.contextView().getOrDefault(QUEUE_POSITION_LISTENER, null);
+            Job job = new Job(jobType, priority, userId, queuePositionListener);
+            job.onDispatch = () -> {
+                Disposable disposable;
+                try {
+                    disposable = task.get()
+                            .doFinally(signalType -> release(job))
+                            .subscribe(sink::next, sink::error, sink::complete);
+                } catch (Exception e) {
+                    release(job);
+                    sink.error(e);
+                    return;
+                }
+                job.disposable = disposable;
+                // 获得名额的同时客户端已取消
+                if (job.cancelled) {
+                    disposable.dispose();
+                }
+            };
+            sink.onCancel(() -> cancel(job));
+            try {
+                admit(job);
+            } catch (BusinessException e) {
+                sink.error(e);
+            }
+        });
+    }
+
+    /**
+     * 提交阻塞型任务（构建、截图），获得执行名额后在虚拟线程中执行
+     *
+     * @param jobType  任务类型
+     * @param priority 任务优先级
+     * @param task     任务
+     * @return 任务结果，队列已满时以 BusinessException 异常结束；取消 Future 可将排队中的任务出队
+     */
+    public <T> CompletableFuture<T> submitBlocking(JobTypeEnum jobType, JobPriorityEnum priority, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Job job = new Job(jobType, priority, null, null);
+        job.future = future;
+        job.onDispatch = () -> Thread.ofVirtual().name("job-" + jobType.getValue()).start(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                release(job);
+            }
+        });
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                cancel(job);
+            }
+        });
+        try {
+            admit(job);
+        } catch (BusinessException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 提升排队中的阻塞型任务的优先级（如后台任务被更高优先级的请求复用时）
+     *
+     * @param future   {@link #submitBlocking} 返回的 Future
+     * @param priority 新的优先级，不高于原优先级时不做处理
+     * @return 是否已提升，任务已开始执行或已结束时返回 false
+     */
+    public boolean raisePriority(CompletableFuture<?> future, JobPriorityEnum priority) {
+        List<Runnable> notifications;
+        synchronized (lock) {
+            Job job = waitQueue.stream()
+                    .filter(candidate -> candidate.future == future)
+                    .findFirst()
+                    .orElse(null);
+            if (job == null || priority.getScore() <= job.priority.getScore()) {
+                return false;
+            }
+            job.priority = priority;
+            notifications = collectPositionNotifications();
+        }
+        notifications.forEach(Runnable::run);
+        return true;
+    }
+
+    public int getQueueSize(JobTypeEnum jobType) {
+        synchronized (lock) {
+            return (int) waitQueue.stream().filter(job -> job.jobType == jobType).count();
+        }
+    }
+
+    public int getRunningCount(JobTypeEnum jobType) {
+        synchronized (lock) {
+            return runningCount.getOrDefault(jobType, 0);
+        }
+    }
+
+    /**
+     * 准入：进入等待队列后立即尝试调度，队列超出上限时拒绝
+     */
+    private void admit(Job job) {
+        List<Job> toDispatch;
+        List<Runnable> notifications;
+        synchronized (lock) {
+            if (job.userId != null) {
+                int userActive = userActiveCount.getOrDefault(job.userId, 0);
+                if (userActive >= jobSchedulerConfig.getGenerationMaxConcurrentPerUser()) {
+                    reject(job, "user_limit");
+                    throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, "您同时进行的生成任务过多，请等待当前任务完成");
+                }
+                userActiveCount.merge(job.userId, 1, Integer::sum);
+            }
+            job.state = JobState.QUEUED;
+            waitQueue.add(job);
+            toDispatch = dispatchLocked();
+            if (job.state == JobState.QUEUED && waitQueue.size() > jobSchedulerConfig.getMaxQueueSize()) {
+                waitQueue.remove(job);
+                finishLocked(job);
+                reject(job, "queue_full");
+                throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, "当前任务较多，请稍后再试");
+            }
+            notifications = collectPositionNotifications();
+        }
+        notifications.forEach(Runnable::run);
+        toDispatch.forEach(next -> next.onDispatch.run());
+    }
+
+    /**
+     * 取消：排队中的任务直接出队，执行中的流式任务取消订阅（由 doFinally 释放名额）
+     */
+    private void cancel(Job job) {
+        List<Runnable> notifications = List.of();
+        Disposable disposable = null;
+        synchronized (lock) {
+            job.cancelled = true;
+            if (job.state == JobState.QUEUED) {
+                waitQueue.remove(job);
+                finishLocked(job);
+                notifications = collectPositionNotifications();
+            } else if (job.state == JobState.RUNNING) {
+                disposable = job.disposable;
+            }
+        }
+        notifications.forEach(Runnable::run);
+        if (disposable != null) {
+            disposable.dispose();
+        }
+    }
+
+    /**
+     * 任务结束释放名额，并调度等待队列中的任务
+     */
+    private void release(Job job) {
+        List<Job> toDispatch;
+        List<Runnable> notifications;
+        synchronized (lock) {
+            if (job.state != JobState.RUNNING) {
+                return;
+            }
+            totalRunning--;
+            runningCount.merge(job.jobType, -1, Integer::sum);
+            finishLocked(job);
+            toDispatch = dispatchLocked();
+            notifications = toDispatch.isEmpty() ? List.of() : collectPositionNotifications();
+        }
+        recordLatency(job);
+        notifications.forEach(Runnable::run);
+        toDispatch.forEach(next -> next.onDispatch.run());
+    }
+
+    /**
+     * 在有空闲名额时，依次选出有效优先级最高且所属类型仍有名额的任务
+     */
+    private List<Job> dispatchLocked() {
+        List<Job> toDispatch = new ArrayList<>();
+        long now = System.nanoTime();
+        while (totalRunning < jobSchedulerConfig.getMaxConcurrent() && !waitQueue.isEmpty()) {
+            Job best = null;
+            double bestPriority = Double.NEGATIVE_INFINITY;
+            for (Job candidate : waitQueue) {
+                if (!hasCapacity(candidate.jobType)) {
+                    continue;
+                }
+                double effectivePriority = getEffectivePriority(candidate, now);
+                // 优先级相同时保持先来先服务
+                if (effectivePriority > bestPriority) {
+                    best = candidate;
+                    bestPriority = effectivePriority;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            waitQueue.remove(best);
+            best.state = JobState.RUNNING;
+            best.startTime = now;
+            totalRunning++;
+            runningCount.merge(best.jobType, 1, Integer::sum);
+            recordWait(best);
+            toDispatch.add(best);
+        }
+        return toDispatch;
+    }
+
+    /**
+     * 指定类型的任务是否还有执行名额（调用方需持有锁，总名额由调用方检查）
+     */
+    private boolean hasCapacity(JobTypeEnum jobType) {
+        if (runningCount.getOrDefault(jobType, 0) >= getMaxConcurrent(jobType)) {
+            return false;
+        }
+        if (jobType == JobTypeEnum.GENERATION) {
+            return true;
+        }
+        // 构建与截图不能占用为代码生成预留的名额
+        int nonGenerationRunning = totalRunning - runningCount.getOrDefault(JobTypeEnum.GENERATION, 0);
+        return nonGenerationRunning < getNonGenerationMaxConcurrent();
+    }
+
+    private int getNonGenerationMaxConcurrent() {
+        return Math.max(1, jobSchedulerConfig.getMaxConcurrent() - jobSchedulerConfig.getGenerationMaxConcurrent());
+    }
+
+    private void finishLocked(Job job) {
+        job.state = JobState.FINISHED;
+        if (job.userId != null) {
+            userActiveCount.computeIfPresent(job.userId, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private double getEffectivePriority(Job job, long now) {
+        double waitedSeconds = (now - job.createTime) / 1_000_000_000.0;
+        return job.priority.getScore() + waitedSeconds * jobSchedulerConfig.getAgingPointsPerSecond();
+    }
+
+    private int getMaxConcurrent(JobTypeEnum jobType) {
+        return switch (jobType) {
+            case GENERATION -> jobSchedulerConfig.getGenerationMaxConcurrent();
+            case VUE_BUILD -> jobSchedulerConfig.getVueBuildMaxConcurrent();
+            case SCREENSHOT -> jobSchedulerConfig.getScreenshotMaxConcurrent();
+        };
+    }
+
+    /**
+     * 收集排队位置发生变化的回调（在锁外执行）
+     * 排队位置为同类型任务中按当前有效优先级排序的名次
+     */
+    private List<Runnable> collectPositionNotifications() {
+        List<Runnable> notifications = new ArrayList<>();
+        long now = System.nanoTime();
+        Map<JobTypeEnum, List<Job>> queuedByType = new EnumMap<>(JobTypeEnum.class);
+        for (Job job : waitQueue) {
+            if (job.queuePositionListener != null) {
+                queuedByType.computeIfAbsent(job.jobType, key -> new ArrayList<>()).add(job);
+            }
+        }
+        for (List<Job> jobs : queuedByType.values()) {
+            jobs.sort(Comparator.comparingDouble((Job job) -> getEffectivePriority(job, now)).reversed());
+            for (int i = 0; i < jobs.size(); i++) {
+                Job job = jobs.get(i);
+                int position = i + 1;
+                if (job.lastNotifiedPosition != position) {
+                    job.lastNotifiedPosition = position;
+                    notifications.add(() -> job.queuePositionListener.accept(position));
+                }
+            }
+        }
+        return notifications;
+    }
+
+    private void recordWait(Job job) {
+        Timer.builder("job.queue.wait")
+                .description("任务的排队等待时间")
+                .tag("type", job.jobType.getValue())
+                .tag("priority", job.priority.getValue())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(job.startTime - job.createTime, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordLatency(Job job) {
+        Timer.builder("job.latency")
+                .description("任务从提交到执行结束的总耗时")
+                .tag("type", job.jobType.getValue())
+                .tag("priority", job.priority.getValue())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - job.createTime, TimeUnit.NANOSECONDS);
+    }
+
+    private void reject(Job job, String reason) {
+        log.warn("任务被拒绝，类型：{}，原因：{}，执行中：{}，排队中：{}",
+                job.jobType.getValue(), reason, totalRunning, waitQueue.size());
+        Counter.builder("job.rejected")
+                .description("被准入控制拒绝的任务数")
+                .tag("type", job.jobType.getValue())
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private enum JobState {
+        NEW, QUEUED, RUNNING, FINISHED
+    }
+
+    /**
+     * 调度任务
+     */
+    private static final class Job {
+
+        private final JobTypeEnum jobType;
+
+        /**
+         * 任务优先级（只在持有调度器锁时修改）
+         */
+        private volatile JobPriorityEnum priority;
+
+        private final Long userId;
+
+        private final IntConsumer queuePositionListener;
+
+        private final long createTime = System.nanoTime();
+
+        private long startTime;
+
+        private volatile JobState state = JobState.NEW;
+
+        private volatile Runnable onDispatch;
+
+        private volatile Disposable disposable;
+
+        /**
+         * 阻塞型任务的结果 Future，流式任务为 null
+         */
+        private CompletableFuture<?> future;
+
+        private volatile boolean cancelled;
+
+        private int lastNotifiedPosition;
+
+        private Job(JobTypeEnum jobType, JobPriorityEnum priority, Long userId, IntConsumer queuePositionListener) {
+            this.jobType = jobType;
+            this.priority = priority;
+            this.userId = userId;
+            this.queuePositionListener = queuePositionListener;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.yupi.yuaicodemother.core.stream;
+
+/**
+ * 生成流事件，对应一条 SSE 消息
+ *
+ * @param streamId 生成流 ID
+ * @param seq      事件序号（同一生成流内从 1 开始单调递增）
+ * @param event    SSE 事件名，普通内容片段为 null
+ * @param data     SSE 事件数据
+ */
+public record GenerationEvent(String streamId, long seq, String event, String data) {
+
+    /**
+     * 生成完成事件
+     */
+    public static final String EVENT_DONE = "done";
+
+    /**
+     * 排队位置事件（临时事件，不写入 Redis 回放缓冲区）
+     */
+    public static final String EVENT_QUEUE = "queue";
+
+    /**
+     * 业务错误事件
+     */
+    public static final String EVENT_ERROR = "business-error";
+
+    /**
+     * SSE 事件 ID，格式为 {streamId}:{seq}，客户端重连时通过 Last-Event-ID 带回
+     */
+    public String eventId() {
+        return streamId + ":" + seq;
+    }
+
+    /**
+     * 是否为结束事件（完成或出错）
+     */
+    public boolean isTerminal() {
+        return EVENT_DONE.equals(event) || EVENT_ERROR.equals(event);
+    }
+}
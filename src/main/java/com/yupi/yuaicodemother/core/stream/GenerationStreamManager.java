@@ -0,0 +1,406 @@
+package com.yupi.yuaicodemother.core.stream;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.yupi.yuaicodemother.core.scheduler.JobScheduler;
+import com.yupi.yuaicodemother.exception.BusinessException;
+import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.exception.ThrowUtils;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * 可恢复的生成流管理器
+ * <p>
+ * 每次生成分配一个流 ID，生成过程在后台订阅执行，与 HTTP 连接解耦：
+ * 1. 每个内容片段分配递增序号，推送到本地回放缓冲区并追加到 Redis Stream（有长度上限）
+ * 2. 客户端断线后携带 Last-Event-ID 重连，先从 Redis 补发缺失的事件，再接入实时流
+ * 3. 所有客户端断开且超过宽限期仍未重连时，取消生成，避免浪费 AI 调用；
+ *    客户端重连到其他节点时，该节点轮询期间定期刷新 Redis 中的读者心跳，生成所在节点据此判断仍有客户端在读
+ */
+@Slf4j
+@Component
+public class GenerationStreamManager {
+
+    private static final String STREAM_KEY_PREFIX = "gen:stream:";
+
+    private static final String META_KEY_SUFFIX = ":meta";
+
+    private static final String READER_KEY_SUFFIX = ":reader";
+
+    private static final String FIELD_EVENT = "e";
+
+    private static final String FIELD_DATA = "d";
+
+    private static final String META_USER_ID = "userId";
+
+    private static final String META_APP_ID = "appId";
+
+    /**
+     * 本地实时流的回放缓冲区大小，覆盖从 Redis 补发到接入实时流之间产生的事件
+     */
+    private static final int LOCAL_REPLAY_SIZE = 256;
+
+    /**
+     * Redis Stream 保留的最大事件数（近似裁剪）
+     */
+    private static final long MAX_STREAM_LENGTH = 10000;
+
+    /**
+     * 每写入多少条事件裁剪一次 Redis Stream
+     */
+    private static final int TRIM_INTERVAL = 500;
+
+    private static final Duration RUNNING_TTL = Duration.ofHours(1);
+
+    private static final Duration FINISHED_TTL = Duration.ofMinutes(10);
+
+    /**
+     * 所有客户端断开后等待重连的宽限期
+     */
+    private static final Duration DETACH_GRACE_PERIOD = Duration.ofSeconds(30);
+
+    /**
+     * 生成不在本节点时，轮询 Redis 的间隔和最长时间
+     */
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(500);
+
+    private static final Duration MAX_POLL_DURATION = Duration.ofMinutes(30);
+
+    /**
+     * 轮询时每隔多少次刷新一次读者心跳（心跳有效期为宽限期）
+     */
+    private static final int READER_HEARTBEAT_TICKS = 10;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 本节点正在进行的生成流
+     */
+    private final Map<String, GenerationSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 开始一个新的生成流
+     *
+     * @param source 生成内容流
+     * @param appId  应用 ID
+     * @param userId 用户 ID
+     * @return 当前客户端订阅的事件流
+     */
+    public Flux<GenerationEvent> start(Flux<String> source, Long appId, Long userId) {
+        String streamId = IdUtil.fastSimpleUUID();
+        GenerationSession session = new GenerationSession(streamId);
+        sessions.put(streamId, session);
+        saveMeta(streamId, appId, userId);
+        Flux<GenerationEvent> clientFlux = attach(session);
+        // 客户端始终未订阅时同样在宽限期后取消生成
+        scheduleDetachCheck(session, DETACH_GRACE_PERIOD);
+        // 在后台订阅生成流，客户端断开不会中断生成
+        session.upstream = source
+                // 排队期间由调度器回调上报排队位置
+                .contextWrite(Context.of(JobScheduler.QUEUE_POSITION_LISTENER,
+                        (IntConsumer) position -> publish(session, GenerationEvent.EVENT_QUEUE,
+                                JSONUtil.toJsonStr(Map.of("position", position)))))
+                .subscribe(
+                        chunk -> publish(session, null, toDataJson(chunk)),
+                        error -> {
+                            log.error("生成流 {} 出错: {}", streamId, error.getMessage());
+                            publish(session, GenerationEvent.EVENT_ERROR, buildErrorData(error));
+                            finish(session);
+                        },
+                        () -> {
+                            publish(session, GenerationEvent.EVENT_DONE, "");
+                            finish(session);
+                        });
+        return clientFlux;
+    }
+
+    /**
+     * 断线重连：补发 Last-Event-ID 之后的事件并接入实时流
+     *
+     * @param lastEventId 客户端最后收到的事件 ID
+     * @param appId       应用 ID
+     * @param userId      用户 ID
+     * @return 事件流
+     */
+    public Flux<GenerationEvent> resume(String lastEventId, Long appId, Long userId) {
+        String streamId = StrUtil.subBefore(lastEventId, ":", true);
+        long lastSeq = parseSeq(StrUtil.subAfter(lastEventId, ":", true));
+        ThrowUtils.throwIf(StrUtil.isBlank(streamId) || lastSeq < 0, ErrorCode.PARAMS_ERROR, "Last-Event-ID 无效");
+        // 校验生成流归属
+        Map<Object, Object> meta = stringRedisTemplate.opsForHash().entries(getMetaKey(streamId));
+        ThrowUtils.throwIf(meta.isEmpty(), ErrorCode.NOT_FOUND_ERROR, "生成记录不存在或已过期");
+        if (!String.valueOf(userId).equals(meta.get(META_USER_ID))
+                || !String.valueOf(appId).equals(meta.get(META_APP_ID))) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限访问该生成记录");
+        }
+        AtomicLong cursor = new AtomicLong(lastSeq);
+        Flux<GenerationEvent> missedEvents = Flux.defer(() -> Flux.fromIterable(readAfter(streamId, cursor.get())))
+                .doOnNext(event -> cursor.set(event.seq()));
+        GenerationSession session = sessions.get(streamId);
+        if (session != null) {
+            // 生成在本节点进行：先补发 Redis 中缺失的事件，再接入实时流（按序号去重）
+            return missedEvents.concatWith(Flux.defer(() -> attach(session)
+                    .filter(event -> event.seq() > cursor.get())));
+        }
+        // 生成在其他节点进行或已结束：轮询 Redis 直到读到结束事件，并定期刷新读者心跳，避免生成所在节点取消生成
+        return Flux.interval(Duration.ZERO, POLL_INTERVAL, Schedulers.boundedElastic())
+                .doOnNext(tick -> {
+                    if (tick % READER_HEARTBEAT_TICKS == 0) {
+                        touchReaderHeartbeat(streamId);
+                    }
+                })
+                .concatMap(tick -> missedEvents)
+                .takeUntil(GenerationEvent::isTerminal)
+                .take(MAX_POLL_DURATION);
+    }
+
+    /**
+     * 订阅本地实时流，并跟踪在线客户端数量
+     */
+    private Flux<GenerationEvent> attach(GenerationSession session) {
+        return session.sink.asFlux()
+                .doOnSubscribe(subscription -> session.subscribers.incrementAndGet())
+                .doFinally(signalType -> {
+                    if (session.subscribers.decrementAndGet() == 0 && signalType == SignalType.CANCEL) {
+                        session.detachedAtMillis = System.currentTimeMillis();
+                        scheduleDetachCheck(session, DETACH_GRACE_PERIOD);
+                    }
+                });
+    }
+
+    /**
+     * 宽限期后仍没有客户端重连（本节点没有订阅者，其他节点也没有读者心跳），则取消生成
+     * 同一会话同时只保留一个待执行的检查，未到期时按剩余时间重新检查
+     */
+    private void scheduleDetachCheck(GenerationSession session, Duration delay) {
+        if (!session.detachCheckPending.compareAndSet(false, true)) {
+            return;
+        }
+        Mono.delay(delay).subscribe(tick -> {
+            session.detachCheckPending.set(false);
+            if (session.subscribers.get() > 0 || session.terminated) {
+                return;
+            }
+            long remainingMillis = session.detachedAtMillis + DETACH_GRACE_PERIOD.toMillis() - System.currentTimeMillis();
+            if (remainingMillis > 0) {
+                scheduleDetachCheck(session, Duration.ofMillis(remainingMillis));
+                return;
+            }
+            if (hasReaderHeartbeat(session.streamId)) {
+                scheduleDetachCheck(session, DETACH_GRACE_PERIOD);
+                return;
+            }
+            log.info("生成流 {} 在 {} 秒内没有客户端重连，取消生成", session.streamId, DETACH_GRACE_PERIOD.toSeconds());
+            Disposable upstream = session.upstream;
+            if (upstream != null) {
+                upstream.dispose();
+            }
+            publish(session, GenerationEvent.EVENT_ERROR,
+                    buildErrorData(new BusinessException(ErrorCode.OPERATION_ERROR, "客户端已断开，生成已取消")));
+            finish(session);
+        });
+    }
+
+    /**
+     * 发布事件：推送到本地实时流并追加到 Redis Stream
+     */
+    private void publish(GenerationSession session, String eventName, String data) {
+        GenerationEvent event;
+        synchronized (session) {
+            if (session.terminated) {
+                return;
+            }
+            event = new GenerationEvent(session.streamId, session.seq.incrementAndGet(), eventName, data);
+            session.sink.tryEmitNext(event);
+        }
+        if (!GenerationEvent.EVENT_QUEUE.equals(eventName)) {
+            appendToRedis(event);
+        }
+    }
+
+    private void finish(GenerationSession session) {
+        synchronized (session) {
+            if (session.terminated) {
+                return;
+            }
+            session.terminated = true;
+            session.sink.tryEmitComplete();
+        }
+        sessions.remove(session.streamId);
+        try {
+            stringRedisTemplate.expire(getStreamKey(session.streamId), FINISHED_TTL);
+            stringRedisTemplate.expire(getMetaKey(session.streamId), FINISHED_TTL);
+        } catch (Exception e) {
+            log.warn("设置生成流过期时间失败: {}", session.streamId, e);
+        }
+    }
+
+    /**
+     * 刷新读者心跳：其他节点上的客户端仍在轮询读取该生成流
+     */
+    private void touchReaderHeartbeat(String streamId) {
+        try {
+            stringRedisTemplate.opsForValue().set(getReaderKey(streamId), "1", DETACH_GRACE_PERIOD);
+        } catch (Exception e) {
+            log.warn("刷新生成流读者心跳失败: {}", streamId, e);
+        }
+    }
+
+    private boolean hasReaderHeartbeat(String streamId) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(getReaderKey(streamId)));
+        } catch (Exception e) {
+            log.warn("查询生成流读者心跳失败: {}", streamId, e);
+            return false;
+        }
+    }
+
+    private void saveMeta(String streamId, Long appId, Long userId) {
+        String metaKey = getMetaKey(streamId);
+        stringRedisTemplate.opsForHash().putAll(metaKey, Map.of(
+                META_USER_ID, String.valueOf(userId),
+                META_APP_ID, String.valueOf(appId)));
+        stringRedisTemplate.expire(metaKey, RUNNING_TTL);
+    }
+
+    /**
+     * 追加事件到 Redis Stream，写入失败只影响断线重连，不中断生成
+     */
+    private void appendToRedis(GenerationEvent event) {
+        String streamKey = getStreamKey(event.streamId());
+        Map<String, String> body = new HashMap<>();
+        body.put(FIELD_DATA, event.data());
+        if (event.event() != null) {
+            body.put(FIELD_EVENT, event.event());
+        }
+        try {
+            // 使用事件序号作为记录 ID，重连时可直接按序号范围读取
+            MapRecord<String, String, String> record = StreamRecords.newRecord()
+                    .in(streamKey)
+                    .withId(RecordId.of(event.seq(), 0))
+                    .ofMap(body);
+            stringRedisTemplate.opsForStream().add(record);
+            if (event.seq() == 1) {
+                stringRedisTemplate.expire(streamKey, RUNNING_TTL);
+            } else if (event.seq() % TRIM_INTERVAL == 0) {
+                stringRedisTemplate.opsForStream().trim(streamKey, MAX_STREAM_LENGTH, true);
+            }
+        } catch (Exception e) {
+            log.warn("写入生成流失败: {}, seq: {}", event.streamId(), event.seq(), e);
+        }
+    }
+
+    /**
+     * 从 Redis Stream 读取指定序号之后的事件
+     */
+    private List<GenerationEvent> readAfter(String streamId, long lastSeq) {
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream().range(
+                getStreamKey(streamId),
+                Range.rightUnbounded(Range.Bound.inclusive(RecordId.of(lastSeq + 1, 0).getValue())));
+        if (records == null) {
+            return List.of();
+        }
+        return records.stream()
+                .map(record -> new GenerationEvent(streamId,
+                        record.getId().getTimestamp(),
+                        (String) record.getValue().get(FIELD_EVENT),
+                        (String) record.getValue().get(FIELD_DATA)))
+                .toList();
+    }
+
+    /**
+     * 将内容片段包装为 {"d": chunk}，这是整条链路中唯一的一次序列化，
+     * 直接拼接转义后的字符串，避免为每个 token 创建 Map 和 JSON 对象
+     */
+    public static String toDataJson(String chunk) {
+        return "{\"d\":" + JSONUtil.quote(chunk) + "}";
+    }
+
+    private static String buildErrorData(Throwable error) {
+        Map<String, Object> errorData = new HashMap<>();
+        errorData.put("error", true);
+        if (error instanceof BusinessException businessException) {
+            errorData.put("code", businessException.getCode());
+            errorData.put("message", businessException.getMessage());
+        } else {
+            errorData.put("code", ErrorCode.SYSTEM_ERROR.getCode());
+            errorData.put("message", "生成过程中出现错误");
+        }
+        return JSONUtil.toJsonStr(errorData);
+    }
+
+    private static long parseSeq(String seq) {
+        try {
+            return Long.parseLong(seq);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String getStreamKey(String streamId) {
+        return STREAM_KEY_PREFIX + streamId;
+    }
+
+    private static String getMetaKey(String streamId) {
+        return STREAM_KEY_PREFIX + streamId + META_KEY_SUFFIX;
+    }
+
+    private static String getReaderKey(String streamId) {
+        return STREAM_KEY_PREFIX + streamId + READER_KEY_SUFFIX;
+    }
+
+    /**
+     * 本节点的一次生成
+     */
+    private static final class GenerationSession {
+
+        private final String streamId;
+
+        private final AtomicLong seq = new AtomicLong();
+
+        private final AtomicInteger subscribers = new AtomicInteger();
+
+        /**
+         * 最近一次所有客户端断开的时间，初始为开始生成的时间
+         */
+        private volatile long detachedAtMillis = System.currentTimeMillis();
+
+        private final AtomicBoolean detachCheckPending = new AtomicBoolean();
+
+        private final Sinks.Many<GenerationEvent> sink = Sinks.many().replay().limit(LOCAL_REPLAY_SIZE);
+
+        private volatile Disposable upstream;
+
+        private volatile boolean terminated;
+
+        private GenerationSession(String streamId) {
+            this.streamId = streamId;
+        }
+    }
+}
@@ -57,4 +57,24 @@ public class CosManager {
             return null;
         }
     }
+
+    /**
+     * 判断对象是否已存在
+     *
+     * @param key COS对象键（完整路径）
+     * @return 是否存在
+     */
+    public boolean exists(String key) {
+        return cosClient.doesObjectExist(cosClientConfig.getBucket(), key);
+    }
+
+    /**
+     * 获取对象的访问 URL
+     *
+     * @param key COS对象键（完整路径）
+     * @return 访问URL
+     */
+    public String getObjectUrl(String key) {
+        return String.format("%s%s", cosClientConfig.getHost(), key);
+    }
 }
@@ -0,0 +1,216 @@
+package com.yupi.yuaicodemother.manager;
+
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.exception.CosClientException;
+import com.qcloud.cos.exception.CosServiceException;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PutObjectRequest;
+import com.qcloud.cos.transfer.TransferManager;
+import com.qcloud.cos.transfer.TransferManagerConfiguration;
+import com.yupi.yuaicodemother.config.CosClientConfig;
+import com.yupi.yuaicodemother.config.CosUploadConfig;
+import com.yupi.yuaicodemother.exception.BusinessException;
+import com.yupi.yuaicodemother.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 对象存储上传管理器
+ * 1. 上传在有界线程池中执行，返回 CompletableFuture，等待队列满时直接拒绝
+ * 2. 超过阈值的文件通过 TransferManager 分块并行上传
+ * 3. 网络异常、限流和服务端错误按指数退避重试
+ */
+@Component
+@Slf4j
+public class CosUploadManager {
+
+    @Resource
+    private CosClientConfig cosClientConfig;
+
+    @Resource
+    private CosUploadConfig cosUploadConfig;
+
+    @Resource
+    private COSClient cosClient;
+
+    @Resource
+    private CosManager cosManager;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 正在上传的任务数
+     */
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+
+    private ThreadPoolExecutor uploadExecutor;
+
+    private ExecutorService partExecutor;
+
+    private TransferManager transferManager;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        uploadExecutor = new ThreadPoolExecutor(cosUploadConfig.getThreads(), cosUploadConfig.getThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(cosUploadConfig.getQueueCapacity()),
+                runnable -> Thread.ofPlatform().name("cos-upload-" + threadIndex.incrementAndGet()).daemon().unstarted(runnable));
+        partExecutor = Executors.newFixedThreadPool(cosUploadConfig.getPartThreads(),
+                Thread.ofPlatform().name("cos-upload-part-", 0).daemon().factory());
+        transferManager = new TransferManager(cosClient, partExecutor);
+        TransferManagerConfiguration transferManagerConfiguration = new TransferManagerConfiguration();
+        transferManagerConfiguration.setMultipartUploadThreshold(cosUploadConfig.getMultipartThresholdBytes());
+        transferManagerConfiguration.setMinimumUploadPartSize(cosUploadConfig.getPartSizeBytes());
+        transferManager.setConfiguration(transferManagerConfiguration);
+        Gauge.builder("cos.upload.in_flight", inFlightCount, AtomicInteger::get)
+                .description("正在上传的任务数")
+                .register(meterRegistry);
+        Gauge.builder("cos.upload.backlog", uploadExecutor, executor -> executor.getQueue().size())
+                .description("等待上传的任务数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        uploadExecutor.shutdown();
+        // TransferManager 不关闭共享的 COSClient
+        transferManager.shutdownNow(false);
+    }
+
+    /**
+     * 异步上传文件
+     *
+     * @param key  COS对象键（完整路径）
+     * @param file 文件
+     * @return 文件的访问URL
+     */
+    public CompletableFuture<String> uploadAsync(String key, File file) {
+        return submit(key, file.length(),
+                () -> new PutObjectRequest(cosClientConfig.getBucket(), key, file));
+    }
+
+    /**
+     * 异步上传内存中的数据（以已知长度的输入流上传，不落盘）
+     *
+     * @param key         COS对象键（完整路径）
+     * @param bytes       文件内容
+     * @param contentType 内容类型
+     * @return 文件的访问URL
+     */
+    public CompletableFuture<String> uploadAsync(String key, byte[] bytes, String contentType) {
+        return submit(key, bytes.length, () -> {
+            ObjectMetadata objectMetadata = new ObjectMetadata();
+            objectMetadata.setContentLength(bytes.length);
+            objectMetadata.setContentType(contentType);
+            return new PutObjectRequest(cosClientConfig.getBucket(), key, new ByteArrayInputStream(bytes), objectMetadata);
+        });
+    }
+
+    /**
+     * 提交上传任务
+     *
+     * @param key            COS对象键
+     * @param size           上传大小
+     * @param requestFactory 上传请求（每次尝试重新创建，保证输入流可重读）
+     * @return 文件的访问URL
+     */
+    private CompletableFuture<String> submit(String key, long size, Supplier<PutObjectRequest> requestFactory) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                inFlightCount.incrementAndGet();
+                long startNanos = System.nanoTime();
+                String result = "failure";
+                try {
+                    String url = uploadWithRetry(key, size, requestFactory);
+                    result = "success";
+                    return url;
+                } finally {
+                    inFlightCount.decrementAndGet();
+                    Timer.builder("cos.upload.duration")
+                            .description("对象存储上传耗时")
+                            .tag("result", result)
+                            .tag("multipart", String.valueOf(isMultipart(size)))
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                }
+            }, uploadExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("上传队列已满，拒绝上传: {}", key);
+            return CompletableFuture.failedFuture(new BusinessException(ErrorCode.SYSTEM_ERROR, "上传任务过多，请稍后再试"));
+        }
+    }
+
+    private String uploadWithRetry(String key, long size, Supplier<PutObjectRequest> requestFactory) {
+        int maxAttempts = Math.max(1, cosUploadConfig.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (isMultipart(size)) {
+                    transferManager.upload(requestFactory.get()).waitForUploadResult();
+                } else {
+                    cosClient.putObject(requestFactory.get());
+                }
+                String url = cosManager.getObjectUrl(key);
+                log.info("文件上传COS成功: {} 字节 -> {}", size, url);
+                return url;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传被中断");
+            } catch (CosClientException e) {
+                if (!isRetryable(e) || attempt >= maxAttempts) {
+                    log.error("文件上传COS失败: {}, 已尝试 {} 次", key, attempt, e);
+                    throw new BusinessException(ErrorCode.OPERATION_ERROR, "文件上传失败");
+                }
+                long backoffMillis = cosUploadConfig.getInitialBackoffMillis() << (attempt - 1);
+                // 加入随机抖动，避免同时失败的任务同时重试
+                backoffMillis += ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+                log.warn("文件上传COS失败，{} ms 后进行第 {} 次重试: {}, 错误信息: {}", backoffMillis, attempt + 1, key, e.getMessage());
+                Counter.builder("cos.upload.retry")
+                        .description("对象存储上传重试次数")
+                        .register(meterRegistry)
+                        .increment();
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传被中断");
+                }
+            }
+        }
+    }
+
+    private boolean isMultipart(long size) {
+        return size >= cosUploadConfig.getMultipartThresholdBytes();
+    }
+
+    /**
+     * 网络异常、限流和服务端错误可以重试，其余（如权限、参数错误）直接失败
+     */
+    private boolean isRetryable(CosClientException e) {
+        if (e instanceof CosServiceException serviceException) {
+            int statusCode = serviceException.getStatusCode();
+            return statusCode == 429 || statusCode >= 500;
+        }
+        return true;
+    }
+}
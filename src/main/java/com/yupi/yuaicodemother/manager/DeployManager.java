@@ -0,0 +1,349 @@
+package com.yupi.yuaicodemother.manager;
+
+import cn.hutool.core.io.FileUtil;
+import com.yupi.yuaicodemother.constant.AppConstant;
+import com.yupi.yuaicodemother.exception.BusinessException;
+import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.utils.DirectoryHashUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 部署发布管理
+ * 每次部署生成不可变的版本目录 code_deploy/{deployKey}/releases/{hash}，
+ * 再原子切换 code_deploy/{deployKey}/current 符号链接指向该版本（nginx 以 current 目录作为站点根目录，见 nginx/deploy.conf）。
+ * 无法创建符号链接时（如 Windows 未开启创建符号链接的权限）改用目录联接，此时切换不是原子的。
+ */
+@Slf4j
+@Component
+public class DeployManager {
+
+    /**
+     * 指向当前版本的符号链接名
+     */
+    public static final String CURRENT_LINK_NAME = "current";
+
+    /**
+     * 版本目录名
+     */
+    private static final String RELEASES_DIR_NAME = "releases";
+
+    /**
+     * 每个应用保留的版本数（当前版本始终保留）
+     */
+    private static final int MAX_RETAINED_RELEASES = 5;
+
+    /**
+     * 发布时跳过的目录
+     */
+    private static final Set<String> EXCLUDED_DIRS = Set.of("node_modules");
+
+    /**
+     * 组装中的版本目录前缀
+     */
+    private static final String STAGING_DIR_PREFIX = ".staging-";
+
+    /**
+     * 切换 current 时使用的临时链接前缀
+     */
+    private static final String TEMP_LINK_PREFIX = ".current-";
+
+    /**
+     * 创建目录联接的超时时间（秒）
+     */
+    private static final int JUNCTION_TIMEOUT_SECONDS = 30;
+
+    /**
+     * deployKey -> 发布锁，同一应用的发布串行执行
+     */
+    private final ConcurrentHashMap<String, ReentrantLock> publishLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 发布新版本并切换为当前版本
+     * 与上一版本相同的文件以硬链接复用，只有变化的文件需要复制
+     *
+     * @param deployKey 部署标识
+     * @param sourceDir 部署源目录
+     * @return 版本哈希（即部署内容的元数据指纹）
+     */
+    public String publish(String deployKey, File sourceDir) {
+        Path deployRoot = getDeployRoot(deployKey);
+        Path releasesDir = deployRoot.resolve(RELEASES_DIR_NAME);
+        ReentrantLock lock = publishLocks.computeIfAbsent(deployKey, key -> new ReentrantLock());
+        lock.lock();
+        Path stagingDir = null;
+        try {
+            Files.createDirectories(releasesDir);
+            // 持有发布锁时仍存在的组装目录和临时链接都是之前中断的发布留下的
+            deleteOrphans(deployRoot, releasesDir);
+            // 1. 在临时目录中组装新版本，读者不会看到写了一半的站点
+            stagingDir = releasesDir.resolve(STAGING_DIR_PREFIX + UUID.randomUUID());
+            Path previousRelease = getCurrentRelease(deployRoot);
+            int linkedCount = stageRelease(sourceDir.toPath(), stagingDir, previousRelease);
+            // 2. 以组装结果的元数据指纹（路径、大小、修改时间）作为版本号，不读取文件内容；
+            //    复制和硬链接都保留源文件的修改时间，未变化的部署得到相同的版本号并复用已有版本
+            String releaseHash = DirectoryHashUtils.fingerprintDirectory(stagingDir, Set.of(), file -> true);
+            Path releaseDir = releasesDir.resolve(releaseHash);
+            if (Files.isDirectory(releaseDir)) {
+                log.info("部署内容未变化，复用已有版本: {}/{}", deployKey, releaseHash);
+            } else {
+                Files.move(stagingDir, releaseDir, StandardCopyOption.ATOMIC_MOVE);
+                stagingDir = null;
+                log.info("生成新版本: {}/{}，复用上一版本文件 {} 个", deployKey, releaseHash, linkedCount);
+            }
+            // 3. 切换当前版本并清理旧版本
+            switchCurrent(deployRoot, releaseHash);
+            pruneReleases(releasesDir, releaseHash);
+            return releaseHash;
+        } catch (IOException e) {
+            log.error("发布部署版本失败: {}, 错误信息: {}", deployKey, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "部署失败：" + e.getMessage());
+        } finally {
+            if (stagingDir != null) {
+                FileUtil.del(stagingDir);
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 回滚到上一次启用的版本（只切换 current 链接，不复制文件）
+     *
+     * @param deployKey 部署标识
+     * @return 回滚后的版本哈希
+     */
+    public String rollback(String deployKey) {
+        Path deployRoot = getDeployRoot(deployKey);
+        Path releasesDir = deployRoot.resolve(RELEASES_DIR_NAME);
+        ReentrantLock lock = publishLocks.computeIfAbsent(deployKey, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            Path currentRelease = getCurrentRelease(deployRoot);
+            if (currentRelease == null || !Files.isDirectory(releasesDir)) {
+                throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "应用尚未部署");
+            }
+            String currentHash = currentRelease.getFileName().toString();
+            // 版本目录的修改时间即最近一次被启用的时间
+            Path previousRelease = listReleases(releasesDir).stream()
+                    .filter(dir -> !dir.getFileName().toString().equals(currentHash))
+                    .findFirst()
+                    .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND_ERROR, "没有可回滚的版本"));
+            String releaseHash = previousRelease.getFileName().toString();
+            switchCurrent(deployRoot, releaseHash);
+            log.info("部署版本已回滚: {}/{} -> {}", deployKey, currentHash, releaseHash);
+            return releaseHash;
+        } catch (IOException e) {
+            log.error("回滚部署版本失败: {}, 错误信息: {}", deployKey, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "回滚失败：" + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Path getDeployRoot(String deployKey) {
+        return Paths.get(AppConstant.CODE_DEPLOY_ROOT_DIR, deployKey).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 获取当前版本目录，没有时返回 null（符号链接与目录联接均通过真实路径解析）
+     */
+    private Path getCurrentRelease(Path deployRoot) throws IOException {
+        Path currentLink = deployRoot.resolve(CURRENT_LINK_NAME);
+        if (!Files.isDirectory(currentLink)) {
+            return null;
+        }
+        return currentLink.toRealPath();
+    }
+
+    /**
+     * 删除中断的发布留下的组装目录与临时链接（调用方需持有发布锁）；失败时只记录日志
+     */
+    private void deleteOrphans(Path deployRoot, Path releasesDir) {
+        try (Stream<Path> stream = Files.list(releasesDir)) {
+            stream.filter(dir -> dir.getFileName().toString().startsWith(STAGING_DIR_PREFIX))
+                    .forEach(dir -> {
+                        FileUtil.del(dir);
+                        log.info("清理中断发布留下的组装目录: {}", dir);
+                    });
+        } catch (IOException e) {
+            log.warn("清理组装目录失败: {}, 错误信息: {}", releasesDir, e.getMessage());
+        }
+        try (Stream<Path> stream = Files.list(deployRoot)) {
+            // 只删除链接本身，不会影响链接指向的版本目录
+            for (Path link : stream.filter(path -> path.getFileName().toString().startsWith(TEMP_LINK_PREFIX)).toList()) {
+                Files.deleteIfExists(link);
+            }
+        } catch (IOException e) {
+            log.warn("清理临时链接失败: {}, 错误信息: {}", deployRoot, e.getMessage());
+        }
+    }
+
+    /**
+     * 组装版本目录：大小与修改时间均未变化的文件硬链接到上一版本，其余文件复制（保留修改时间）
+     *
+     * @return 硬链接复用的文件数
+     */
+    private int stageRelease(Path sourceRoot, Path stagingDir, Path previousRelease) throws IOException {
+        int[] linkedCount = {0};
+        Files.walkFileTree(sourceRoot, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(sourceRoot) && EXCLUDED_DIRS.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(stagingDir.resolve(sourceRoot.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path relativePath = sourceRoot.relativize(file);
+                Path target = stagingDir.resolve(relativePath);
+                if (previousRelease != null && linkIfUnchanged(previousRelease.resolve(relativePath), attrs, target)) {
+                    linkedCount[0]++;
+                } else {
+                    Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return linkedCount[0];
+    }
+
+    /**
+     * 上一版本中的同名文件未变化时创建硬链接
+     *
+     * @return 是否已创建硬链接
+     */
+    private boolean linkIfUnchanged(Path previousFile, BasicFileAttributes sourceAttrs, Path target) {
+        try {
+            if (!Files.isRegularFile(previousFile)) {
+                return false;
+            }
+            BasicFileAttributes previousAttrs = Files.readAttributes(previousFile, BasicFileAttributes.class);
+            if (previousAttrs.size() != sourceAttrs.size()
+                    || !previousAttrs.lastModifiedTime().equals(sourceAttrs.lastModifiedTime())) {
+                return false;
+            }
+            Files.createLink(target, previousFile);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            // 文件系统不支持硬链接时退化为复制
+            log.debug("创建硬链接失败，改为复制: {}, 错误信息: {}", target, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 原子切换 current 符号链接：先创建临时链接，再通过 rename 覆盖
+     * Windows 上无法创建符号链接时改用目录联接
+     */
+    private void switchCurrent(Path deployRoot, String releaseHash) throws IOException {
+        Path releaseDir = deployRoot.resolve(RELEASES_DIR_NAME).resolve(releaseHash);
+        Path tempLink = deployRoot.resolve(TEMP_LINK_PREFIX + UUID.randomUUID());
+        try {
+            Files.createSymbolicLink(tempLink, Paths.get(RELEASES_DIR_NAME, releaseHash));
+        } catch (IOException | UnsupportedOperationException e) {
+            if (!FileUtil.isWindows()) {
+                throw e;
+            }
+            log.warn("无法创建符号链接，改用目录联接: {}, 错误信息: {}", deployRoot, e.getMessage());
+            switchCurrentJunction(deployRoot.resolve(CURRENT_LINK_NAME), releaseDir);
+            touchRelease(releaseDir);
+            return;
+        }
+        try {
+            Files.move(tempLink, deployRoot.resolve(CURRENT_LINK_NAME),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempLink);
+            throw e;
+        }
+        touchRelease(releaseDir);
+    }
+
+    /**
+     * 以目录联接切换 current：目录联接不能通过 rename 覆盖，先删除旧的联接（只删除联接本身）再创建
+     */
+    private void switchCurrentJunction(Path currentLink, Path releaseDir) throws IOException {
+        Files.deleteIfExists(currentLink);
+        Process process = new ProcessBuilder("cmd", "/c", "mklink", "/J",
+                currentLink.toString(), releaseDir.toAbsolutePath().toString())
+                .redirectErrorStream(true)
+                .start();
+        try {
+            String output = new String(process.getInputStream().readAllBytes()).trim();
+            if (!process.waitFor(JUNCTION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("创建目录联接超时");
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("创建目录联接失败: " + output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            throw new IOException("创建目录联接被中断", e);
+        }
+    }
+
+    /**
+     * 以修改时间记录版本最近一次被启用的时间，供清理时排序
+     */
+    private void touchRelease(Path releaseDir) throws IOException {
+        Files.setLastModifiedTime(releaseDir, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    /**
+     * 清理最近未启用的旧版本，当前版本始终保留；失败时只记录日志
+     */
+    private void pruneReleases(Path releasesDir, String currentHash) {
+        try {
+            List<Path> staleReleases = listReleases(releasesDir).stream()
+                    .filter(dir -> !dir.getFileName().toString().equals(currentHash))
+                    .skip(MAX_RETAINED_RELEASES - 1)
+                    .toList();
+            for (Path staleRelease : staleReleases) {
+                FileUtil.del(staleRelease);
+                log.info("清理旧部署版本: {}", staleRelease);
+            }
+        } catch (IOException e) {
+            log.warn("清理旧部署版本失败: {}, 错误信息: {}", releasesDir, e.getMessage());
+        }
+    }
+
+    /**
+     * 列出所有版本目录，按最近一次启用时间从新到旧排序（不含组装中的目录）
+     */
+    private List<Path> listReleases(Path releasesDir) throws IOException {
+        try (Stream<Path> stream = Files.list(releasesDir)) {
+            return stream
+                    .filter(Files::isDirectory)
+                    .filter(dir -> !dir.getFileName().toString().startsWith("."))
+                    .sorted(Comparator.comparing((Path dir) -> dir.toFile().lastModified()).reversed())
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.yupi.yuaicodemother.manager;
+
+import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yupi.yuaicodemother.config.GoodAppCacheConfig;
+import com.yupi.yuaicodemother.exception.BusinessException;
+import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.model.dto.app.AppQueryRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 精选应用列表缓存
+ * 首页精选列表对所有访客相同，不带筛选条件的前 N 页以序列化后的 JSON 字节缓存：本地 Caffeine 为一级，Redis 为二级。
+ * Redis 中的缓存键带版本号，失效时递增版本号使旧数据全部作废，并通过 Redis 发布订阅通知各节点清空本地缓存
+ */
+@Component
+@Slf4j
+public class GoodAppCacheManager {
+
+    /**
+     * 缓存版本号（Redis key）
+     */
+    private static final String VERSION_KEY = "app:good_feed:version";
+
+    /**
+     * 分页数据（Redis key 前缀），完整格式为 前缀:{版本号}:{页号}:{页面大小}
+     */
+    private static final String PAGE_KEY_PREFIX = "app:good_feed:page:";
+
+    /**
+     * 可缓存的最大页面大小（与接口限制一致），页面大小决定缓存键，必须有界
+     */
+    private static final int MAX_CACHED_PAGE_SIZE = 20;
+
+    @Resource
+    private GoodAppCacheConfig goodAppCacheConfig;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<PageKey, byte[]> pageCache;
+
+    private Counter redisHitCounter;
+
+    private Counter redisMissCounter;
+
+    @PostConstruct
+    public void init() {
+        pageCache = Caffeine.newBuilder()
+                .maximumSize((long) goodAppCacheConfig.getMaxCachedPages() * MAX_CACHED_PAGE_SIZE)
+                .expireAfterWrite(Duration.ofSeconds(goodAppCacheConfig.getLocalExpireSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pageCache, "good.app.feed");
+        redisHitCounter = Counter.builder("good.app.feed.redis")
+                .description("精选应用列表 Redis 缓存访问次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        redisMissCounter = Counter.builder("good.app.feed.redis")
+                .description("精选应用列表 Redis 缓存访问次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        // 订阅其他节点的失效通知
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> pageCache.invalidateAll(),
+                new ChannelTopic(goodAppCacheConfig.getInvalidationChannel()));
+    }
+
+    /**
+     * 是否可以走缓存：不带任何筛选和排序条件，页号和页面大小都在缓存范围内
+     *
+     * @param appQueryRequest 查询请求
+     * @return 是否可缓存
+     */
+    public boolean isCacheable(AppQueryRequest appQueryRequest) {
+        return appQueryRequest.getPageSize() >= 1
+                && appQueryRequest.getPageSize() <= MAX_CACHED_PAGE_SIZE
+                && appQueryRequest.getPageNum() >= 1
+                && appQueryRequest.getPageNum() <= goodAppCacheConfig.getMaxCachedPages()
+                && appQueryRequest.getId() == null
+                && appQueryRequest.getUserId() == null
+                && StrUtil.isAllBlank(appQueryRequest.getAppName(), appQueryRequest.getCover(),
+                appQueryRequest.getInitPrompt(), appQueryRequest.getCodeGenType(),
+                appQueryRequest.getDeployKey(), appQueryRequest.getSortField());
+    }
+
+    /**
+     * 获取分页响应的 JSON 字节，依次读取本地缓存、Redis，都未命中时通过 loader 查询并回填
+     *
+     * @param pageNum  页号
+     * @param pageSize 页面大小
+     * @param loader   查询响应对象
+     * @return JSON 字节
+     */
+    public byte[] getPage(int pageNum, int pageSize, Supplier<Object> loader) {
+        return pageCache.get(new PageKey(pageNum, pageSize), key -> loadPage(key, loader));
+    }
+
+    /**
+     * 清空缓存（本节点立即清空，其他节点通过 Redis 通知清空）
+     */
+    public void invalidate() {
+        try {
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+        } catch (Exception e) {
+            log.warn("递增精选应用缓存版本失败，错误：{}", e.getMessage());
+        }
+        pageCache.invalidateAll();
+        try {
+            stringRedisTemplate.convertAndSend(goodAppCacheConfig.getInvalidationChannel(), VERSION_KEY);
+        } catch (Exception e) {
+            // 通知失败时其他节点依赖本地缓存过期时间兜底
+            log.warn("发送精选应用缓存失效通知失败，错误：{}", e.getMessage());
+        }
+    }
+
+    private byte[] loadPage(PageKey key, Supplier<Object> loader) {
+        // 1. 读取 Redis 缓存（Redis 不可用时直接查库）
+        String redisKey = null;
+        try {
+            String version = StrUtil.blankToDefault(stringRedisTemplate.opsForValue().get(VERSION_KEY), "0");
+            redisKey = PAGE_KEY_PREFIX + version + ":" + key.pageNum() + ":" + key.pageSize();
+            String cachedJson = stringRedisTemplate.opsForValue().get(redisKey);
+            if (cachedJson != null) {
+                redisHitCounter.increment();
+                return cachedJson.getBytes(StandardCharsets.UTF_8);
+            }
+            redisMissCounter.increment();
+        } catch (Exception e) {
+            log.warn("读取精选应用 Redis 缓存失败，错误：{}", e.getMessage());
+        }
+        // 2. 查询并序列化
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(loader.get());
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "精选应用列表序列化失败");
+        }
+        // 3. 回填 Redis
+        if (redisKey != null) {
+            try {
+                stringRedisTemplate.opsForValue().set(redisKey, new String(json, StandardCharsets.UTF_8),
+                        Duration.ofSeconds(goodAppCacheConfig.getRedisExpireSeconds()));
+            } catch (Exception e) {
+                log.warn("写入精选应用 Redis 缓存失败，错误：{}", e.getMessage());
+            }
+        }
+        return json;
+    }
+
+    /**
+     * 本地缓存键
+     *
+     * @param pageNum  页号
+     * @param pageSize 页面大小
+     */
+    private record PageKey(int pageNum, int pageSize) {
+    }
+}
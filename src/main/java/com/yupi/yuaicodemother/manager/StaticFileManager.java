@@ -0,0 +1,332 @@
+package com.yupi.yuaicodemother.manager;
+
+import cn.hutool.core.util.StrUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yupi.yuaicodemother.config.StaticFileConfig;
+import com.yupi.yuaicodemother.utils.MimeTypeUtils;
+import com.yupi.yuaicodemother.utils.PrecompressUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 静态文件输出
+ * 1. 输出强 ETag（文件大小 + 修改时间）、Last-Modified 与 Cache-Control，条件请求命中时返回 304
+ * 2. 支持单段 Range 请求（含 If-Range）
+ * 3. 容器支持 sendfile 时交给容器零拷贝发送，否则通过 FileChannel.transferTo 输出
+ * 4. 客户端支持 gzip 且存在对应版本的预压缩文件时，直接输出压缩文件
+ * 5. 小文件缓存在内存中（按字节数限制总容量），缓存键包含文件路径、修改时间和大小，文件被改写后旧缓存不会命中
+ */
+@Component
+@Slf4j
+public class StaticFileManager {
+
+    /**
+     * Tomcat sendfile 相关的请求属性
+     */
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 小于该大小的文件直接走 transferTo，不使用 sendfile（与 Tomcat 默认的 sendfileSize 一致）
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    /**
+     * 默认缓存策略：可以缓存，但每次使用前需向服务器验证（配合 ETag 返回 304）
+     */
+    private static final String DEFAULT_CACHE_CONTROL = "no-cache";
+
+    @Resource
+    private StaticFileConfig staticFileConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 热点小文件的内存缓存
+     */
+    private Cache<FileCacheKey, byte[]> fileCache;
+
+    @PostConstruct
+    public void init() {
+        fileCache = Caffeine.newBuilder()
+                .maximumWeight(staticFileConfig.getCacheMaxBytes())
+                .weigher((FileCacheKey key, byte[] content) -> content.length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, fileCache, "static.file");
+        Gauge.builder("static.file.cache.bytes", fileCache,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("内存缓存的静态文件总字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 清除目录（或文件）下所有文件的内存缓存，在保存器、工具或构建改写目录后调用以尽快释放内存
+     *
+     * @param path 目录或文件
+     */
+    public void invalidate(Path path) {
+        String prefix = path.toAbsolutePath().normalize().toString();
+        fileCache.asMap().keySet().removeIf(key -> key.path().startsWith(prefix));
+    }
+
+    /**
+     * 输出文件
+     *
+     * @param file     文件（调用方需保证存在且为普通文件）
+     * @param request  请求
+     * @param response 响应
+     */
+    public void serveFile(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // 秒级精度，与 HTTP 日期格式一致
+        long lastModified = file.lastModified() / 1000 * 1000;
+        String etag = buildEtag(file.length(), lastModified);
+        // 内容协商：可压缩的资源优先输出预压缩文件
+        File bodyFile = file;
+        if (MimeTypeUtils.isCompressible(file.getName())) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            File gzipFile = acceptsGzip(request) ? PrecompressUtils.findFreshGzip(file) : null;
+            if (gzipFile != null) {
+                bodyFile = gzipFile;
+                // 不同编码的表示使用不同的 ETag
+                etag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+        }
+        long fileLength = bodyFile.length();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        // 带内容哈希的构建产物可永久缓存，其余资源每次使用前验证
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                MimeTypeUtils.isImmutableAsset(file) ? MimeTypeUtils.IMMUTABLE_CACHE_CONTROL : DEFAULT_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // 1. 条件请求
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(MimeTypeUtils.getContentType(file.getName()));
+        // 2. Range 请求
+        long start = 0;
+        long end = fileLength - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && fileLength > 0 && isIfRangeSatisfied(request, etag, lastModified)) {
+            long[] range = parseRange(rangeHeader, fileLength);
+            if (range == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength);
+                return;
+            }
+            if (range.length == 2) {
+                start = range[0];
+                end = range[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, String.format("bytes %d-%d/%d", start, end, fileLength));
+            }
+        }
+        long contentLength = fileLength == 0 ? 0 : end - start + 1;
+        response.setContentLengthLong(contentLength);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || contentLength == 0) {
+            return;
+        }
+        // 3. 输出内容：小文件优先从内存缓存输出
+        if (fileLength <= staticFileConfig.getCacheMaxFileBytes()) {
+            byte[] content = getCachedContent(bodyFile, fileLength);
+            // 读取期间文件被改写时长度可能不一致，此时改为直接读取磁盘
+            if (content != null && content.length == fileLength) {
+                response.getOutputStream().write(content, (int) start, (int) contentLength);
+                return;
+            }
+        }
+        if (contentLength >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, bodyFile.getCanonicalPath());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+        try (FileChannel fileChannel = FileChannel.open(bodyFile.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel outputChannel = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = contentLength;
+            while (remaining > 0) {
+                long transferred = fileChannel.transferTo(position, remaining, outputChannel);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * 从内存缓存获取文件内容，未命中时读取磁盘并放入缓存
+     */
+    private byte[] getCachedContent(File file, long fileLength) {
+        FileCacheKey key = new FileCacheKey(file.toPath().toAbsolutePath().normalize().toString(), file.lastModified(), fileLength);
+        try {
+            return fileCache.get(key, cacheKey -> {
+                try {
+                    return Files.readAllBytes(file.toPath());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            log.warn("读取静态文件失败: {}, 错误信息: {}", file.getAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 客户端是否接受 gzip 编码（q=0 表示不接受）
+     */
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase();
+            if (!coding.equals("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private String buildEtag(long fileLength, long lastModified) {
+        return "\"" + Long.toHexString(fileLength) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * 判断条件请求是否命中（If-None-Match 优先于 If-Modified-Since）
+     */
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = getDateHeaderQuietly(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * If-Range 不满足时忽略 Range，返回完整内容
+     */
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long ifRangeDate = getDateHeaderQuietly(request, HttpHeaders.IF_RANGE);
+        return ifRangeDate != -1 && lastModified <= ifRangeDate;
+    }
+
+    private boolean matchesEtag(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            // If-None-Match 使用弱比较
+            if (trimmed.equals("*") || StrUtil.removePrefix(trimmed, "W/").equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析 Range 头
+     *
+     * @return 长度为 2 的数组表示 [start, end]；空数组表示忽略 Range（如多段请求）；null 表示范围无法满足
+     */
+    private long[] parseRange(String rangeHeader, long fileLength) {
+        if (!rangeHeader.startsWith("bytes=")) {
+            return new long[0];
+        }
+        String rangeSpec = rangeHeader.substring("bytes=".length()).trim();
+        // 多段 Range 不支持，返回完整内容
+        if (rangeSpec.contains(",")) {
+            return new long[0];
+        }
+        int dashIndex = rangeSpec.indexOf('-');
+        if (dashIndex < 0) {
+            return new long[0];
+        }
+        try {
+            String startPart = rangeSpec.substring(0, dashIndex).trim();
+            String endPart = rangeSpec.substring(dashIndex + 1).trim();
+            long start;
+            long end;
+            if (startPart.isEmpty()) {
+                // 后缀范围：最后 N 个字节
+                long suffixLength = Long.parseLong(endPart);
+                if (suffixLength <= 0) {
+                    return null;
+                }
+                start = Math.max(0, fileLength - suffixLength);
+                end = fileLength - 1;
+            } else {
+                start = Long.parseLong(startPart);
+                end = endPart.isEmpty() ? fileLength - 1 : Math.min(Long.parseLong(endPart), fileLength - 1);
+            }
+            if (start >= fileLength || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private long getDateHeaderQuietly(HttpServletRequest request, String headerName) {
+        try {
+            return request.getDateHeader(headerName);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 文件缓存键：路径 + 修改时间 + 大小
+     */
+    private record FileCacheKey(String path, long lastModified, long size) {
+    }
+}
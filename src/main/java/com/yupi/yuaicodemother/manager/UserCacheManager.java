@@ -0,0 +1,90 @@
+package com.yupi.yuaicodemother.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yupi.yuaicodemother.config.UserCacheConfig;
+import com.yupi.yuaicodemother.model.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 登录用户本地缓存
+ * 按用户 ID 缓存用户信息，用户被修改或删除时清除本节点缓存，并通过 Redis 发布订阅通知其他节点
+ */
+@Component
+@Slf4j
+public class UserCacheManager {
+
+    @Resource
+    private UserCacheConfig userCacheConfig;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<Long, User> userCache;
+
+    @PostConstruct
+    public void init() {
+        userCache = Caffeine.newBuilder()
+                .maximumSize(userCacheConfig.getMaximumSize())
+                .expireAfterWrite(Duration.ofSeconds(userCacheConfig.getExpireSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userCache, "user.cache");
+        // 订阅其他节点的失效通知
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                userCache.invalidate(Long.valueOf(body));
+            } catch (NumberFormatException e) {
+                log.warn("无效的用户缓存失效通知: {}", body);
+            }
+        }, new ChannelTopic(userCacheConfig.getInvalidationChannel()));
+    }
+
+    /**
+     * 获取用户，缓存未命中时通过 loader 加载（加载结果为 null 时不缓存）
+     *
+     * @param userId 用户 ID
+     * @param loader 加载函数
+     * @return 用户
+     */
+    public User get(Long userId, Function<Long, User> loader) {
+        return userCache.get(userId, loader);
+    }
+
+    /**
+     * 清除用户缓存（本节点立即清除，其他节点通过 Redis 通知清除）
+     *
+     * @param userId 用户 ID
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        userCache.invalidate(userId);
+        try {
+            stringRedisTemplate.convertAndSend(userCacheConfig.getInvalidationChannel(), String.valueOf(userId));
+        } catch (Exception e) {
+            // 通知失败时其他节点依赖过期时间兜底
+            log.warn("发送用户缓存失效通知失败，userId: {}，错误：{}", userId, e.getMessage());
+        }
+    }
+}
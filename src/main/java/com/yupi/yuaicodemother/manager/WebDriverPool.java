@@ -0,0 +1,241 @@
+package com.yupi.yuaicodemother.manager;
+
+import com.yupi.yuaicodemother.config.JobSchedulerConfig;
+import com.yupi.yuaicodemother.config.ScreenshotConfig;
+import com.yupi.yuaicodemother.exception.BusinessException;
+import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.utils.WebScreenshotUtils;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 无头浏览器池
+ * 池大小与调度器的截图并发上限一致，浏览器按需创建；借出前做健康检查，失效的浏览器会被关闭并重建。
+ * ChromeDriver 在第一次截图时才安装，应用启动不依赖 Chrome；空闲超时的浏览器会被关闭，应用关闭时关闭全部浏览器。
+ */
+@Component
+@Slf4j
+public class WebDriverPool {
+
+    @Resource
+    private JobSchedulerConfig jobSchedulerConfig;
+
+    @Resource
+    private ScreenshotConfig screenshotConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 空闲的浏览器（队头为最近归还的）
+     */
+    private final Deque<IdleDriver> idleDrivers = new ArrayDeque<>();
+
+    /**
+     * 所有已创建且未关闭的浏览器（含借出中的）
+     */
+    private final Set<WebDriver> allDrivers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 借出中的浏览器数
+     */
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final ScheduledExecutorService idleEvictor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("webdriver-idle-evictor").daemon().factory());
+
+    private Semaphore permits;
+
+    /**
+     * ChromeDriver 是否已安装
+     */
+    private volatile boolean driverInstalled;
+
+    private volatile boolean shutdown;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(1, jobSchedulerConfig.getScreenshotMaxConcurrent()), true);
+        long checkIntervalSeconds = Math.max(1, screenshotConfig.getIdleTimeoutSeconds() / 2);
+        idleEvictor.scheduleWithFixedDelay(this::evictIdleDrivers, checkIntervalSeconds, checkIntervalSeconds, TimeUnit.SECONDS);
+        Gauge.builder("screenshot.pool.active", activeCount, AtomicInteger::get)
+                .description("借出中的浏览器数")
+                .register(meterRegistry);
+        Gauge.builder("screenshot.pool.idle", this, WebDriverPool::getIdleCount)
+                .description("空闲的浏览器数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 借用一个浏览器执行操作，执行完毕后自动归还
+     *
+     * @param action 浏览器操作
+     * @return 操作结果
+     */
+    public <T> T execute(Function<WebDriver, T> action) {
+        WebDriver driver = borrow();
+        try {
+            return action.apply(driver);
+        } finally {
+            giveBack(driver);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        shutdown = true;
+        idleEvictor.shutdownNow();
+        synchronized (idleDrivers) {
+            idleDrivers.clear();
+        }
+        allDrivers.forEach(this::quitQuietly);
+        allDrivers.clear();
+        log.info("浏览器池已关闭");
+    }
+
+    private WebDriver borrow() {
+        try {
+            if (!permits.tryAcquire(screenshotConfig.getBorrowTimeoutSeconds(), TimeUnit.SECONDS)) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "截图浏览器繁忙，请稍后再试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "等待截图浏览器时被中断");
+        }
+        try {
+            WebDriver driver = pollHealthyDriver();
+            if (driver == null) {
+                installDriverIfNeeded();
+                driver = WebScreenshotUtils.createChromeDriver(screenshotConfig.getWidth(), screenshotConfig.getHeight(),
+                        screenshotConfig.getPageLoadTimeoutSeconds());
+                allDrivers.add(driver);
+                log.info("创建浏览器，当前浏览器数: {}", allDrivers.size());
+            }
+            activeCount.incrementAndGet();
+            return driver;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void giveBack(WebDriver driver) {
+        activeCount.decrementAndGet();
+        if (shutdown) {
+            quitQuietly(driver);
+        } else {
+            synchronized (idleDrivers) {
+                idleDrivers.push(new IdleDriver(driver, System.nanoTime()));
+            }
+        }
+        permits.release();
+    }
+
+    /**
+     * 第一次创建浏览器前安装 ChromeDriver，失败时下次借用会重试
+     */
+    private void installDriverIfNeeded() {
+        if (driverInstalled) {
+            return;
+        }
+        synchronized (this) {
+            if (driverInstalled) {
+                return;
+            }
+            try {
+                // 自动管理 ChromeDriver
+                WebDriverManager.chromedriver().setup();
+                driverInstalled = true;
+            } catch (Exception e) {
+                log.error("安装 ChromeDriver 失败", e);
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "截图浏览器不可用");
+            }
+        }
+    }
+
+    /**
+     * 关闭空闲超时的浏览器（从最久未使用的开始）
+     */
+    private void evictIdleDrivers() {
+        long idleTimeoutNanos = TimeUnit.SECONDS.toNanos(screenshotConfig.getIdleTimeoutSeconds());
+        long now = System.nanoTime();
+        List<WebDriver> expiredDrivers = new ArrayList<>();
+        synchronized (idleDrivers) {
+            while (!idleDrivers.isEmpty() && now - idleDrivers.peekLast().idleSince() >= idleTimeoutNanos) {
+                expiredDrivers.add(idleDrivers.pollLast().driver());
+            }
+        }
+        if (!expiredDrivers.isEmpty()) {
+            expiredDrivers.forEach(this::quitQuietly);
+            log.info("关闭空闲浏览器 {} 个，当前浏览器数: {}", expiredDrivers.size(), allDrivers.size());
+        }
+    }
+
+    /**
+     * 取出一个健康的空闲浏览器，失效的直接关闭
+     */
+    private WebDriver pollHealthyDriver() {
+        while (true) {
+            IdleDriver idleDriver;
+            synchronized (idleDrivers) {
+                idleDriver = idleDrivers.poll();
+            }
+            if (idleDriver == null) {
+                return null;
+            }
+            WebDriver driver = idleDriver.driver();
+            if (isHealthy(driver)) {
+                return driver;
+            }
+            log.warn("浏览器会话已失效，关闭后重建");
+            quitQuietly(driver);
+        }
+    }
+
+    private boolean isHealthy(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void quitQuietly(WebDriver driver) {
+        allDrivers.remove(driver);
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            log.warn("关闭浏览器失败: {}", e.getMessage());
+        }
+    }
+
+    private int getIdleCount() {
+        synchronized (idleDrivers) {
+            return idleDrivers.size();
+        }
+    }
+
+    private record IdleDriver(WebDriver driver, long idleSince) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.yupi.yuaicodemother.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 代码块类型枚举（对应 AI 输出中 ```lang 围栏的语言标识）
+ */
+@Getter
+public enum CodeBlockTypeEnum {
+
+    HTML("HTML 代码块", "html", "index.html"),
+    CSS("CSS 代码块", "css", "style.css"),
+    JS("JavaScript 代码块", "js", "script.js");
+
+    private final String text;
+    private final String value;
+    private final String fileName;
+
+    CodeBlockTypeEnum(String text, String value, String fileName) {
+        this.text = text;
+        this.value = value;
+        this.fileName = fileName;
+    }
+
+    /**
+     * 根据围栏语言标识获取枚举（忽略大小写）
+     *
+     * @param language 语言标识，如 html、css、js、javascript
+     * @return 枚举值，不支持的语言返回 null
+     */
+    public static CodeBlockTypeEnum getEnumByLanguage(String language) {
+        if (ObjUtil.isEmpty(language)) {
+            return null;
+        }
+        if ("javascript".equalsIgnoreCase(language)) {
+            return JS;
+        }
+        for (CodeBlockTypeEnum anEnum : CodeBlockTypeEnum.values()) {
+            if (anEnum.value.equalsIgnoreCase(language)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.yupi.yuaicodemother.model.enums;
+
+import com.yupi.yuaicodemother.constant.AppConstant;
+import lombok.Getter;
+
+/**
+ * 调度任务优先级枚举
+ * 分值越高越先执行，排队期间会随等待时间老化提升
+ */
+@Getter
+public enum JobPriorityEnum {
+
+    INTERACTIVE("用户交互任务", "interactive", 200),
+    FEATURED("精选应用任务", "featured", 100),
+    BACKGROUND("后台任务", "background", 0);
+
+    private final String text;
+    private final String value;
+    private final int score;
+
+    JobPriorityEnum(String text, String value, int score) {
+        this.text = text;
+        this.value = value;
+        this.score = score;
+    }
+
+    /**
+     * 根据应用优先级获取后台任务的优先级，精选应用的任务优先执行
+     *
+     * @param appPriority 应用优先级
+     * @return 任务优先级
+     */
+    public static JobPriorityEnum ofApp(Integer appPriority) {
+        if (appPriority != null && appPriority >= AppConstant.GOOD_APP_PRIORITY) {
+            return FEATURED;
+        }
+        return BACKGROUND;
+    }
+}
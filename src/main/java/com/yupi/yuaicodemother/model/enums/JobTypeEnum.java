@@ -0,0 +1,22 @@
+package com.yupi.yuaicodemother.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 调度任务类型枚举
+ */
+@Getter
+public enum JobTypeEnum {
+
+    GENERATION("代码生成", "generation"),
+    VUE_BUILD("Vue 项目构建", "vue_build"),
+    SCREENSHOT("网页截图", "screenshot");
+
+    private final String text;
+    private final String value;
+
+    JobTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+}
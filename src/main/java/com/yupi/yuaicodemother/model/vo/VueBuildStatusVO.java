@@ -0,0 +1,45 @@
+package com.yupi.yuaicodemother.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Vue 项目构建状态
+ */
+@Data
+public class VueBuildStatusVO implements Serializable {
+
+    /**
+     * 应用 id
+     */
+    private Long appId;
+
+    /**
+     * 当前构建状态（none / queued / building / success / failed）
+     */
+    private String status;
+
+    /**
+     * 当前构建完成后是否还有一次待执行的构建
+     */
+    private Boolean hasPendingBuild;
+
+    /**
+     * 最近一次构建的开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 最近一次构建的结束时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 最近一次构建的耗时（毫秒）
+     */
+    private Long durationMs;
+
+    private static final long serialVersionUID = 1L;
+}
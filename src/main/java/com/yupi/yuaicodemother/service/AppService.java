@@ -1,5 +1,6 @@
 package com.yupi.yuaicodemother.service;
 
+import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
 import com.yupi.yuaicodemother.model.dto.app.AppAddRequest;
@@ -42,6 +43,14 @@ public interface AppService extends IService<App> {
      */
     List<AppVO> getAppVOList(List<App> appList);
 
+    /**
+     * 分页查询精选应用封装类（直接查库，不走缓存）
+     *
+     * @param appQueryRequest
+     * @return
+     */
+    Page<AppVO> listGoodAppVOByPage(AppQueryRequest appQueryRequest);
+
 
     /**
      * 创建应用的方法
@@ -63,12 +72,23 @@ public interface AppService extends IService<App> {
      */
     String deployApp(Long appId, User loginUser);
 
+    /**
+     * 将应用的部署回滚到上一次启用的版本
+     *
+     * @param appId     应用 ID
+     * @param loginUser 登录用户（仅本人可以回滚）
+     * @return 可访问的部署 URL
+     */
+    String rollbackDeploy(Long appId, User loginUser);
+
 
     /**
      * 异步生成应用截图的方法
+     * 站点内容哈希与生成当前封面时一致时跳过截图
      *
-     * @param appId  应用程序的唯一标识符
-     * @param appUrl 应用程序的URL
+     * @param appId    应用程序的唯一标识符
+     * @param appUrl   应用程序的URL
+     * @param siteHash 部署内容的哈希，为 null 时总是截图
      */
-    void generateAppScreenshotAsync(Long appId, String appUrl);
+    void generateAppScreenshotAsync(Long appId, String appUrl, String siteHash);
 }
@@ -1,5 +1,6 @@
 package com.yupi.yuaicodemother.service;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 public interface ProjectDownloadService {
@@ -9,7 +10,8 @@ public interface ProjectDownloadService {
      *
      * @param projectPath
      * @param downloadFileName
+     * @param request
      * @param response
      */
-    void downloadProjectAsZip(String projectPath, String downloadFileName, HttpServletResponse response);
+    void downloadProjectAsZip(String projectPath, String downloadFileName, HttpServletRequest request, HttpServletResponse response);
 }
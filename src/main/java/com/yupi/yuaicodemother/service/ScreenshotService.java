@@ -1,7 +1,14 @@
 package com.yupi.yuaicodemother.service;
 
-public interface ScreenshotService {
+import java.util.concurrent.CompletableFuture;
 
+public interface ScreenshotService {
 
-    String generateAndUploadScreenshot(String webUrl);
+    /**
+     * 生成网页截图并异步上传到对象存储
+     *
+     * @param webUrl 网页URL
+     * @return 上传完成后得到对象存储访问URL
+     */
+    CompletableFuture<String> generateAndUploadScreenshot(String webUrl);
 }
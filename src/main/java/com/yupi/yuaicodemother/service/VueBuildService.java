@@ -0,0 +1,31 @@
+package com.yupi.yuaicodemother.service;
+
+import com.yupi.yuaicodemother.model.enums.JobPriorityEnum;
+import com.yupi.yuaicodemother.model.vo.VueBuildStatusVO;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Vue 项目构建服务
+ */
+public interface VueBuildService {
+
+    /**
+     * 提交应用的 Vue 项目构建
+     * 同一项目的构建会合并：已有排队中的构建时直接复用；已有执行中的构建时，
+     * 在其完成后再执行一次（多次提交只会执行一次）
+     *
+     * @param appId    应用 id
+     * @param priority 任务优先级
+     * @return 是否构建成功
+     */
+    CompletableFuture<Boolean> submitBuild(Long appId, JobPriorityEnum priority);
+
+    /**
+     * 获取应用的 Vue 项目构建状态
+     *
+     * @param appId 应用 id
+     * @return 构建状态
+     */
+    VueBuildStatusVO getBuildStatus(Long appId);
+}
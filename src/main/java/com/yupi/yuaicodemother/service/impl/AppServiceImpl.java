@@ -4,16 +4,20 @@ import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
+import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
 import com.yupi.yuaicodemother.ai.AiCodeGenTypeRoutingService;
+import com.yupi.yuaicodemother.ai.model.message.StreamMessage;
 import com.yupi.yuaicodemother.constant.AppConstant;
 import com.yupi.yuaicodemother.core.AiCodeGeneratorFacade;
-import com.yupi.yuaicodemother.core.builder.VueProjectBuilder;
+import com.yupi.yuaicodemother.core.scheduler.JobScheduler;
 import com.yupi.yuaicodemother.core.handler.StreamHandlerExecutor;
 import com.yupi.yuaicodemother.exception.BusinessException;
 import com.yupi.yuaicodemother.exception.ErrorCode;
 import com.yupi.yuaicodemother.exception.ThrowUtils;
+import com.yupi.yuaicodemother.manager.DeployManager;
+import com.yupi.yuaicodemother.manager.GoodAppCacheManager;
 import com.yupi.yuaicodemother.model.dto.app.AppAddRequest;
 import com.yupi.yuaicodemother.model.dto.app.AppQueryRequest;
 import com.yupi.yuaicodemother.model.entity.App;
@@ -21,23 +25,32 @@ import com.yupi.yuaicodemother.mapper.AppMapper;
 import com.yupi.yuaicodemother.model.entity.User;
 import com.yupi.yuaicodemother.model.enums.ChatHistoryMessageTypeEnum;
 import com.yupi.yuaicodemother.model.enums.CodeGenTypeEnum;
+import com.yupi.yuaicodemother.model.enums.JobPriorityEnum;
+import com.yupi.yuaicodemother.model.enums.JobTypeEnum;
 import com.yupi.yuaicodemother.model.vo.AppVO;
 import com.yupi.yuaicodemother.model.vo.UserVO;
 import com.yupi.yuaicodemother.service.AppService;
 import com.yupi.yuaicodemother.service.ChatHistoryService;
 import com.yupi.yuaicodemother.service.ScreenshotService;
 import com.yupi.yuaicodemother.service.UserService;
+import com.yupi.yuaicodemother.service.VueBuildService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
 import java.io.File;
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -62,14 +75,31 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     private StreamHandlerExecutor streamHandlerExecutor;
 
     @Resource
-    private VueProjectBuilder vueProjectBuilder;
+    private VueBuildService vueBuildService;
 
     @Resource
     private ScreenshotService screenshotService;
 
+    @Resource
+    private DeployManager deployManager;
+
+    @Resource
+    private GoodAppCacheManager goodAppCacheManager;
+
     @Resource
     private AiCodeGenTypeRoutingService aiCodeGenTypeRoutingService;
 
+    @Resource
+    private JobScheduler jobScheduler;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 生成应用当前封面时的部署内容哈希（Redis key 前缀）
+     */
+    private static final String COVER_SITE_HASH_KEY_PREFIX = "app:cover:site_hash:";
+
     /**
      * 创建应用的方法
      *
@@ -118,12 +148,15 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型");
         }
-        // 5. 通过校验后，添加用户消息到对话历史
-        chatHistoryService.addChatMessage(appId, message, ChatHistoryMessageTypeEnum.USER.getValue(), loginUser.getId());
-        // 6. 调用 AI 生成代码（流式）
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
-        // 7. 收集 AI 响应内容并在完成后记录到对话历史
-        return streamHandlerExecutor.doExecute(codeStream, chatHistoryService, appId, loginUser, codeGenTypeEnum);
+        // 5. 通过调度器进行准入控制，获得执行名额后才开始生成
+        return jobScheduler.submit(JobTypeEnum.GENERATION, JobPriorityEnum.INTERACTIVE, loginUser.getId(), () -> {
+            // 6. 添加用户消息到对话历史
+            chatHistoryService.addChatMessage(appId, message, ChatHistoryMessageTypeEnum.USER.getValue(), loginUser.getId());
+            // 7. 调用 AI 生成代码（流式）
+            Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
+            // 8. 收集 AI 响应内容并在完成后记录到对话历史
+            return streamHandlerExecutor.doExecute(codeStream, chatHistoryService, appId, loginUser, codeGenTypeEnum);
+        });
 
     }
 
@@ -132,15 +165,27 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         if (app == null) {
             return null;
         }
-        AppVO appVO = new AppVO();
-        BeanUtil.copyProperties(app, appVO);
         // 关联查询用户信息
+        UserVO userVO = null;
         Long userId = app.getUserId();
         if (userId != null) {
             User user = userService.getById(userId);
-            UserVO userVO = userService.getUserVO(user);
-            appVO.setUser(userVO);
+            userVO = userService.getUserVO(user);
         }
+        return toAppVO(app, userVO);
+    }
+
+    /**
+     * 封装应用视图（用户信息由调用方提供，不再查询）
+     *
+     * @param app    应用
+     * @param userVO 创建用户信息
+     * @return 应用视图
+     */
+    private AppVO toAppVO(App app, UserVO userVO) {
+        AppVO appVO = new AppVO();
+        BeanUtil.copyProperties(app, appVO);
+        appVO.setUser(userVO);
         return appVO;
     }
 
@@ -176,18 +221,30 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         if (CollUtil.isEmpty(appList)) {
             return new ArrayList<>();
         }
-        // 批量获取用户信息，避免 N+1 查询问题
+        // 先收集本页所有用户 ID，一次批量查询后再分发给各个应用，避免 N+1 查询问题
         Set<Long> userIds = appList.stream()
                 .map(App::getUserId)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
-        Map<Long, UserVO> userVOMap = userService.listByIds(userIds).stream()
+        Map<Long, UserVO> userVOMap = userIds.isEmpty() ? Collections.emptyMap() : userService.listByIds(userIds).stream()
                 .collect(Collectors.toMap(User::getId, userService::getUserVO));
-        return appList.stream().map(app -> {
-            AppVO appVO = getAppVO(app);
-            UserVO userVO = userVOMap.get(app.getUserId());
-            appVO.setUser(userVO);
-            return appVO;
-        }).collect(Collectors.toList());
+        return appList.stream()
+                .map(app -> toAppVO(app, userVOMap.get(app.getUserId())))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<AppVO> listGoodAppVOByPage(AppQueryRequest appQueryRequest) {
+        long pageNum = appQueryRequest.getPageNum();
+        long pageSize = appQueryRequest.getPageSize();
+        // 只查询精选的应用
+        appQueryRequest.setPriority(AppConstant.GOOD_APP_PRIORITY);
+        QueryWrapper queryWrapper = getQueryWrapper(appQueryRequest);
+        Page<App> appPage = this.page(Page.of(pageNum, pageSize), queryWrapper);
+        // 数据封装
+        Page<AppVO> appVOPage = new Page<>(pageNum, pageSize, appPage.getTotalRow());
+        appVOPage.setRecords(getAppVOList(appPage.getRecords()));
+        return appVOPage;
     }
 
     @Override
@@ -220,8 +277,16 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         // 7. Vue 项目特殊处理：执行构建
         CodeGenTypeEnum codeGenTypeEnum = CodeGenTypeEnum.getEnumByValue(codeGenType);
         if (codeGenTypeEnum == CodeGenTypeEnum.VUE_PROJECT) {
-            // Vue 项目需要构建
-            boolean buildSuccess = vueProjectBuilder.buildProject(sourceDirPath);
+            // Vue 项目需要构建（用户正在等待部署结果，以交互优先级排队；已有进行中的构建时等待其结果）
+            boolean buildSuccess;
+            try {
+                buildSuccess = vueBuildService.submitBuild(appId, JobPriorityEnum.INTERACTIVE).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof BusinessException businessException) {
+                    throw businessException;
+                }
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "Vue 项目构建失败：" + e.getCause().getMessage());
+            }
             ThrowUtils.throwIf(!buildSuccess, ErrorCode.SYSTEM_ERROR, "Vue 项目构建失败，请检查代码和依赖");
             // 检查 dist 目录是否存在
             File distDir = new File(sourceDirPath, "dist");
@@ -230,15 +295,48 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
             sourceDir = distDir;
             log.info("Vue 项目构建成功，将部署 dist 目录: {}", distDir.getAbsolutePath());
         }
-        // 8. 复制文件到部署目录
-        String deployDirPath = AppConstant.CODE_DEPLOY_ROOT_DIR + File.separator + deployKey;
-
-        // 9. 返回可访问的 URL
-//        return String.format("%s/%s/", AppConstant.CODE_DEPLOY_HOST, deployKey);
+        // 8. 发布到部署目录：生成不可变版本并原子切换为当前版本
+        String releaseHash = deployManager.publish(deployKey, sourceDir);
+        // 9. 更新应用的 deployKey 和部署时间
+        App updateApp = new App();
+        updateApp.setId(appId);
+        updateApp.setDeployKey(deployKey);
+        updateApp.setDeployedTime(LocalDateTime.now());
+        boolean updateResult = this.updateById(updateApp);
+        ThrowUtils.throwIf(!updateResult, ErrorCode.OPERATION_ERROR, "更新应用部署信息失败");
+        // 精选应用的部署地址出现在首页列表中
+        if (AppConstant.GOOD_APP_PRIORITY.equals(app.getPriority())) {
+            goodAppCacheManager.invalidate();
+        }
         // 10. 构建应用访问 Url
         String appDeployUrl = String.format("%s/%s/", AppConstant.CODE_DEPLOY_HOST, deployKey);
-        // 11. 异步生成截图并更新封面
-        generateAppScreenshotAsync(appId, appDeployUrl);
+        // 11. 异步生成截图并更新封面（版本哈希即部署内容哈希，内容未变化时复用当前封面）
+        generateAppScreenshotAsync(appId, appDeployUrl, releaseHash);
+        return appDeployUrl;
+    }
+
+    @Override
+    public String rollbackDeploy(Long appId, User loginUser) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR, "用户未登录");
+        App app = this.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        // 仅本人可以回滚
+        if (!app.getUserId().equals(loginUser.getId())) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限回滚该应用");
+        }
+        String deployKey = app.getDeployKey();
+        ThrowUtils.throwIf(StrUtil.isBlank(deployKey), ErrorCode.OPERATION_ERROR, "应用尚未部署");
+        // 只切换当前版本，无需重新构建和复制文件
+        String releaseHash = deployManager.rollback(deployKey);
+        App updateApp = new App();
+        updateApp.setId(appId);
+        updateApp.setDeployedTime(LocalDateTime.now());
+        boolean updateResult = this.updateById(updateApp);
+        ThrowUtils.throwIf(!updateResult, ErrorCode.OPERATION_ERROR, "更新应用部署信息失败");
+        String appDeployUrl = String.format("%s/%s/", AppConstant.CODE_DEPLOY_HOST, deployKey);
+        // 封面与回滚后的版本保持一致（该版本生成过封面时直接复用）
+        generateAppScreenshotAsync(appId, appDeployUrl, releaseHash);
         return appDeployUrl;
     }
 
@@ -266,30 +364,58 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
             log.error("删除应用关联对话历史失败: {}", e.getMessage());
         }
         // 删除应用
-        return super.removeById(id);
+        boolean result = super.removeById(id);
+        if (result) {
+            goodAppCacheManager.invalidate();
+        }
+        return result;
     }
 
 
     /**
      * 异步生成应用截图并更新封面
      *
-     * @param appId  应用ID
-     * @param appUrl 应用访问URL
+     * @param appId    应用ID
+     * @param appUrl   应用访问URL
+     * @param siteHash 部署内容的哈希
      */
     @Override
-    public void generateAppScreenshotAsync(Long appId, String appUrl) {
-        // 使用虚拟线程异步执行
-        Thread.startVirtualThread(() -> {
-            // 调用截图服务生成截图并上传
-            String screenshotUrl = screenshotService.generateAndUploadScreenshot(appUrl);
+    public void generateAppScreenshotAsync(Long appId, String appUrl, String siteHash) {
+        App app = this.getById(appId);
+        if (app == null) {
+            return;
+        }
+        // 部署内容与生成当前封面时一致，无需重新截图
+        String coverSiteHashKey = COVER_SITE_HASH_KEY_PREFIX + appId;
+        if (siteHash != null && StrUtil.isNotBlank(app.getCover())
+                && siteHash.equals(stringRedisTemplate.opsForValue().get(coverSiteHashKey))) {
+            log.info("应用 {} 的部署内容未变化，复用当前封面", appId);
+            return;
+        }
+        // 精选应用的截图优先执行
+        JobPriorityEnum priority = JobPriorityEnum.ofApp(app.getPriority());
+        // 截图任务只占用截图名额生成截图，上传完成后再异步更新封面
+        jobScheduler.submitBlocking(JobTypeEnum.SCREENSHOT, priority,
+                () -> screenshotService.generateAndUploadScreenshot(appUrl)
+        ).thenCompose(Function.identity()).thenAccept(screenshotUrl -> {
             // 更新应用封面字段
             App updateApp = new App();
             updateApp.setId(appId);
             updateApp.setCover(screenshotUrl);
             boolean updated = this.updateById(updateApp);
             ThrowUtils.throwIf(!updated, ErrorCode.OPERATION_ERROR, "更新应用封面字段失败");
+            // 精选应用的封面出现在首页列表中
+            if (AppConstant.GOOD_APP_PRIORITY.equals(app.getPriority())) {
+                goodAppCacheManager.invalidate();
+            }
+            // 记录生成该封面的部署内容哈希
+            if (siteHash != null) {
+                stringRedisTemplate.opsForValue().set(coverSiteHashKey, siteHash);
+            }
+        }).whenComplete((result, error) -> {
+            if (error != null) {
+                log.error("生成应用截图失败，appId: {}，错误：{}", appId, error.getMessage());
+            }
         });
     }
-
-
 }
@@ -1,20 +1,41 @@
 package com.yupi.yuaicodemother.service.impl;
 
+import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.core.util.ZipUtil;
+import com.yupi.yuaicodemother.constant.AppConstant;
 import com.yupi.yuaicodemother.exception.BusinessException;
 import com.yupi.yuaicodemother.exception.ErrorCode;
 import com.yupi.yuaicodemother.exception.ThrowUtils;
+import com.yupi.yuaicodemother.manager.StaticFileManager;
 import com.yupi.yuaicodemother.service.ProjectDownloadService;
+import com.yupi.yuaicodemother.utils.DirectoryHashUtils;
+import com.yupi.yuaicodemother.utils.MimeTypeUtils;
+import com.yupi.yuaicodemother.utils.PrecompressUtils;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileFilter;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 @Slf4j
@@ -37,48 +58,46 @@ public class ProjectDownloadServiceImpl implements ProjectDownloadService {
     );
 
     /**
-     * 需要过滤的文件扩展名
+     * 需要过滤的文件扩展名（含预压缩生成的 .gz 文件）
      */
     private static final Set<String> IGNORED_EXTENSIONS = Set.of(
             ".log",
             ".tmp",
-            ".cache"
+            ".cache",
+            PrecompressUtils.GZIP_SUFFIX
     );
 
     /**
-     * 检查路径是否允许包含在压缩包中
-     *
-     * @param projectRoot 项目根目录
-     * @param fullPath    完整路径
-     * @return 是否允许
+     * 压缩包扩展名
      */
-    private boolean isPathAllowed(Path projectRoot, Path fullPath) {
-        // 获取相对路径
-        Path relativePath = projectRoot.relativize(fullPath);
-        // 检查路径中的每一部分
-        for (Path part : relativePath) {
-            String partName = part.toString();
-            // 检查是否在忽略名称列表中
-            if (IGNORED_NAMES.contains(partName)) {
-                return false;
-            }
-            // 检查文件扩展名
-            if (IGNORED_EXTENSIONS.stream().anyMatch(partName::endsWith)) {
-                return false;
-            }
-        }
-        return true;
-    }
+    private static final String ZIP_SUFFIX = ".zip";
+
+    /**
+     * 旧压缩包被新压缩包取代后的保留时长
+     * 取代前已通过检查的请求可能在处理方法返回后才打开文件（如 Tomcat sendfile），保留期内不删除
+     */
+    private static final Duration STALE_ARCHIVE_GRACE_PERIOD = Duration.ofMinutes(5);
+
+    @Resource
+    private StaticFileManager staticFileManager;
+
+    /**
+     * 项目目录名 -> 打包锁，同一项目同时只打包一次
+     */
+    private final ConcurrentHashMap<String, ReentrantLock> archiveLocks = new ConcurrentHashMap<>();
 
     /**
      * 下载压缩包
+     * 压缩包按项目内容指纹缓存，内容未变化时直接输出缓存文件（支持 Range 与条件请求）
      *
-     * @param projectPath
-     * @param downloadFileName
-     * @param response
+     * @param projectPath      项目路径
+     * @param downloadFileName 下载文件名（不含扩展名）
+     * @param request          请求
+     * @param response         响应
      */
     @Override
-    public void downloadProjectAsZip(String projectPath, String downloadFileName, HttpServletResponse response) {
+    public void downloadProjectAsZip(String projectPath, String downloadFileName,
+                                     HttpServletRequest request, HttpServletResponse response) {
         // 基础校验
         ThrowUtils.throwIf(StrUtil.isBlank(projectPath), ErrorCode.PARAMS_ERROR, "项目路径不能为空");
         ThrowUtils.throwIf(StrUtil.isBlank(downloadFileName), ErrorCode.PARAMS_ERROR, "下载文件名不能为空");
@@ -86,21 +105,134 @@ public class ProjectDownloadServiceImpl implements ProjectDownloadService {
         ThrowUtils.throwIf(!projectDir.exists(), ErrorCode.NOT_FOUND_ERROR, "项目目录不存在");
         ThrowUtils.throwIf(!projectDir.isDirectory(), ErrorCode.PARAMS_ERROR, "指定路径不是目录");
         log.info("开始打包下载项目: {} -> {}.zip", projectPath, downloadFileName);
-        // 设置 HTTP 响应头
-        response.setStatus(HttpServletResponse.SC_OK);
-        response.setContentType("application/zip");
-        response.addHeader("Content-Disposition",
-                String.format("attachment; filename=\"%s.zip\"", downloadFileName));
-        // 定义文件过滤器
-        FileFilter filter = file -> isPathAllowed(projectDir.toPath(), file.toPath());
+        File zipFile;
         try {
-            // 使用 Hutool 的 ZipUtil 直接将过滤后的目录压缩到响应输出流
-            ZipUtil.zip(response.getOutputStream(), StandardCharsets.UTF_8, false, filter, projectDir);
-            log.info("项目打包下载完成: {}", downloadFileName);
+            zipFile = getOrCreateArchive(projectDir.toPath().toAbsolutePath().normalize());
         } catch (Exception e) {
             log.error("项目打包下载异常", e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "项目打包下载失败");
         }
+        // 设置 HTTP 响应头，并输出缓存的压缩包
+        response.addHeader("Content-Disposition",
+                String.format("attachment; filename=\"%s.zip\"", downloadFileName));
+        try {
+            staticFileManager.serveFile(zipFile, request, response);
+            log.info("项目打包下载完成: {}", downloadFileName);
+        } catch (IOException e) {
+            // 多为客户端中断下载
+            log.warn("项目压缩包输出中断: {}, 错误信息: {}", downloadFileName, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取项目的压缩包，内容变化后重新打包并清理该项目的旧压缩包
+     *
+     * @param projectRoot 项目根目录
+     * @return 压缩包文件
+     */
+    private File getOrCreateArchive(Path projectRoot) throws IOException, InterruptedException, ExecutionException {
+        List<Path> files = collectFiles(projectRoot);
+        // 项目内容指纹（相对路径、文件大小与修改时间），无需读取文件内容
+        String fingerprint = DirectoryHashUtils.fingerprintFiles(projectRoot, files);
+        Path cacheDir = Path.of(AppConstant.DOWNLOAD_CACHE_ROOT_DIR, projectRoot.getFileName().toString());
+        Path zipPath = cacheDir.resolve(fingerprint + ZIP_SUFFIX);
+        if (Files.isRegularFile(zipPath)) {
+            log.info("项目内容未变化，复用缓存的压缩包: {}", zipPath);
+            return zipPath.toFile();
+        }
+        ReentrantLock lock = archiveLocks.computeIfAbsent(projectRoot.getFileName().toString(), key -> new ReentrantLock());
+        lock.lock();
+        try {
+            // 等待锁期间可能已被其他请求打包完成
+            if (Files.isRegularFile(zipPath)) {
+                return zipPath.toFile();
+            }
+            Files.createDirectories(cacheDir);
+            // 先写入临时文件，完成后原子替换，避免输出写了一半的压缩包
+            Path tempPath = cacheDir.resolve(UUID.randomUUID() + ".tmp");
+            try {
+                writeArchive(projectRoot, files, tempPath);
+                Files.move(tempPath, zipPath, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempPath);
+            }
+            deleteStaleArchives(cacheDir, zipPath);
+            return zipPath.toFile();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 遍历项目文件，遍历时直接跳过被忽略的目录
+     *
+     * @param projectRoot 项目根目录
+     * @return 按相对路径排序的文件列表
+     */
+    private List<Path> collectFiles(Path projectRoot) throws IOException {
+        return DirectoryHashUtils.listFiles(projectRoot, IGNORED_NAMES, file -> {
+            String fileName = file.getFileName().toString();
+            return !IGNORED_NAMES.contains(fileName)
+                    && IGNORED_EXTENSIONS.stream().noneMatch(fileName::endsWith);
+        });
+    }
+
+    /**
+     * 并行压缩写入压缩包，本身已压缩的文件（图片、字体等）直接存储
+     */
+    private void writeArchive(Path projectRoot, List<Path> files, Path zipPath)
+            throws IOException, InterruptedException, ExecutionException {
+        ParallelScatterZipCreator creator = new ParallelScatterZipCreator();
+        for (Path relativePath : files) {
+            Path file = projectRoot.resolve(relativePath);
+            ZipArchiveEntry entry = new ZipArchiveEntry(toEntryName(relativePath));
+            entry.setMethod(MimeTypeUtils.isAlreadyCompressed(file.getFileName().toString())
+                    ? ZipArchiveEntry.STORED : ZipArchiveEntry.DEFLATED);
+            entry.setTime(Files.getLastModifiedTime(file).toMillis());
+            creator.addArchiveEntry(entry, () -> openInputStream(file));
+        }
+        try (ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(zipPath)) {
+            creator.writeTo(zipOutputStream);
+        }
+    }
+
+    private InputStream openInputStream(Path file) {
+        try {
+            return Files.newInputStream(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 清理该项目的旧压缩包：被取代超过保留时长的才删除，其余留到下次打包时清理；失败时只记录日志
+     * 压缩包原子出现的时间即其修改时间，因此一个压缩包被取代的时间就是下一个更新的压缩包的修改时间
+     */
+    private void deleteStaleArchives(Path cacheDir, Path currentZip) {
+        File[] archives = cacheDir.toFile().listFiles((dir, name) -> name.endsWith(ZIP_SUFFIX));
+        if (archives == null) {
+            return;
+        }
+        // 按修改时间从新到旧排序
+        Arrays.sort(archives, Comparator.comparingLong(File::lastModified).reversed());
+        long supersededBefore = System.currentTimeMillis() - STALE_ARCHIVE_GRACE_PERIOD.toMillis();
+        for (int i = 1; i < archives.length; i++) {
+            File archive = archives[i];
+            long supersededAt = archives[i - 1].lastModified();
+            if (archive.toPath().equals(currentZip) || supersededAt > supersededBefore) {
+                continue;
+            }
+            if (!FileUtil.del(archive)) {
+                log.warn("清理旧压缩包失败: {}", archive.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * 压缩包内统一使用 / 分隔
+     */
+    private String toEntryName(Path relativePath) {
+        return relativePath.toString().replace('\\', '/');
     }
 
 }
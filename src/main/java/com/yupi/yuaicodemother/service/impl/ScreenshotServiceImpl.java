@@ -1,20 +1,24 @@
 package com.yupi.yuaicodemother.service.impl;
 
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.yupi.yuaicodemother.config.ScreenshotConfig;
 import com.yupi.yuaicodemother.exception.ErrorCode;
 import com.yupi.yuaicodemother.exception.ThrowUtils;
 import com.yupi.yuaicodemother.manager.CosManager;
+import com.yupi.yuaicodemother.manager.CosUploadManager;
+import com.yupi.yuaicodemother.manager.WebDriverPool;
 import com.yupi.yuaicodemother.service.ScreenshotService;
 import com.yupi.yuaicodemother.utils.WebScreenshotUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
@@ -23,66 +27,74 @@ public class ScreenshotServiceImpl implements ScreenshotService {
     @Resource
     private CosManager cosManager;
 
+    @Resource
+    private CosUploadManager cosUploadManager;
+
+    @Resource
+    private WebDriverPool webDriverPool;
+
+    @Resource
+    private ScreenshotConfig screenshotConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
     @Override
-    public String generateAndUploadScreenshot(String webUrl) {
+    public CompletableFuture<String> generateAndUploadScreenshot(String webUrl) {
         ThrowUtils.throwIf(StrUtil.isBlank(webUrl), ErrorCode.PARAMS_ERROR, "网页URL不能为空");
         log.info("开始生成网页截图，URL: {}", webUrl);
-        // 1. 生成本地截图
-        String localScreenshotPath = WebScreenshotUtils.saveWebPageScreenshot(webUrl);
-        ThrowUtils.throwIf(StrUtil.isBlank(localScreenshotPath), ErrorCode.OPERATION_ERROR, "本地截图生成失败");
-        try {
-            // 2. 上传到对象存储
-            String cosUrl = uploadScreenshotToCos(localScreenshotPath);
+        // 1. 从浏览器池借用浏览器生成截图
+        long startNanos = System.nanoTime();
+        byte[] screenshotBytes = webDriverPool.execute(webDriver -> WebScreenshotUtils.captureWebPageScreenshot(webDriver, webUrl));
+        Timer.builder("screenshot.capture")
+                .description("网页截图耗时")
+                .tag("result", screenshotBytes == null ? "failure" : "success")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        ThrowUtils.throwIf(screenshotBytes == null, ErrorCode.OPERATION_ERROR, "截图生成失败");
+        // 2. 在内存中缩放并编码为 JPEG（浏览器已归还，不占用浏览器）
+        long encodeStartNanos = System.nanoTime();
+        byte[] imageBytes = WebScreenshotUtils.toJpegThumbnail(screenshotBytes,
+                screenshotConfig.getThumbnailWidth(), screenshotConfig.getJpegQuality());
+        Timer.builder("screenshot.encode")
+                .description("截图缩放与编码耗时")
+                .register(meterRegistry)
+                .record(System.nanoTime() - encodeStartNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("screenshot.size")
+                .description("截图大小")
+                .baseUnit("bytes")
+                .tag("stage", "original")
+                .register(meterRegistry)
+                .record(screenshotBytes.length);
+        DistributionSummary.builder("screenshot.size")
+                .description("截图大小")
+                .baseUnit("bytes")
+                .tag("stage", "encoded")
+                .register(meterRegistry)
+                .record(imageBytes.length);
+        // 3. 异步上传到对象存储，当前线程不等待上传完成
+        return uploadScreenshotToCos(imageBytes).thenApply(cosUrl -> {
             ThrowUtils.throwIf(StrUtil.isBlank(cosUrl), ErrorCode.OPERATION_ERROR, "截图上传对象存储失败");
             log.info("网页截图生成并上传成功: {} -> {}", webUrl, cosUrl);
             return cosUrl;
-        } finally {
-            // 3. 清理本地文件
-            cleanupLocalFile(localScreenshotPath);
-        }
+        });
     }
 
     /**
      * 上传截图到对象存储
+     * 对象键由图片内容哈希决定，相同的截图只上传一次
      *
-     * @param localScreenshotPath 本地截图路径
-     * @return 对象存储访问URL，失败返回null
-     */
-    private String uploadScreenshotToCos(String localScreenshotPath) {
-        if (StrUtil.isBlank(localScreenshotPath)) {
-            return null;
-        }
-        File screenshotFile = new File(localScreenshotPath);
-        if (!screenshotFile.exists()) {
-            log.error("截图文件不存在: {}", localScreenshotPath);
-            return null;
-        }
-        // 生成 COS 对象键
-        String fileName = UUID.randomUUID().toString().substring(0, 8) + "_compressed.jpg";
-        String cosKey = generateScreenshotKey(fileName);
-        return cosManager.uploadFile(cosKey, screenshotFile);
-    }
-
-    /**
-     * 生成截图的对象存储键
-     * 格式：/screenshots/2025/07/31/filename.jpg
-     */
-    private String generateScreenshotKey(String fileName) {
-        String datePath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        return String.format("/screenshots/%s/%s", datePath, fileName);
-    }
-
-    /**
-     * 清理本地文件
-     *
-     * @param localFilePath 本地文件路径
+     * @param imageBytes 截图（JPEG）
+     * @return 对象存储访问URL
      */
-    private void cleanupLocalFile(String localFilePath) {
-        File localFile = new File(localFilePath);
-        if (localFile.exists()) {
-            File parentDir = localFile.getParentFile();
-            FileUtil.del(parentDir);
-            log.info("本地截图文件已清理: {}", localFilePath);
+    private CompletableFuture<String> uploadScreenshotToCos(byte[] imageBytes) {
+        // 生成 COS 对象键，格式：/screenshots/{sha256}.jpg
+        String cosKey = String.format("/screenshots/%s.jpg", DigestUtil.sha256Hex(imageBytes));
+        if (cosManager.exists(cosKey)) {
+            log.info("相同内容的截图已存在，复用对象: {}", cosKey);
+            return CompletableFuture.completedFuture(cosManager.getObjectUrl(cosKey));
         }
+        return cosUploadManager.uploadAsync(cosKey, imageBytes, "image/jpeg");
     }
 }
@@ -7,6 +7,7 @@ import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
 import com.yupi.yuaicodemother.exception.BusinessException;
 import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.manager.UserCacheManager;
 import com.yupi.yuaicodemother.model.dto.user.UserQueryRequest;
 import com.yupi.yuaicodemother.model.entity.User;
 import com.yupi.yuaicodemother.mapper.UserMapper;
@@ -14,11 +15,13 @@ import com.yupi.yuaicodemother.model.enums.UserRoleEnum;
 import com.yupi.yuaicodemother.model.vo.LoginUserVO;
 import com.yupi.yuaicodemother.model.vo.UserVO;
 import com.yupi.yuaicodemother.service.UserService;
+import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,6 +36,9 @@ import static com.yupi.yuaicodemother.constant.UserConstant.USER_LOGIN_STATE;
 @Service
 public class UserServiceImpl extends ServiceImpl<UserMapper, User>  implements UserService{
 
+    @Resource
+    private UserCacheManager userCacheManager;
+
     @Override
     public long userRegister(String userAccount, String userPassword, String checkPassword) {
         // 1.校验
@@ -124,9 +130,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User>  implements U
         if (currentUser == null || currentUser.getId() == null) {
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
-        // 从数据库查询数据
+        // 优先从本地缓存获取，未命中时查询数据库
         Long id = currentUser.getId();
-        currentUser = this.getById(id);
+        currentUser = userCacheManager.get(id, this::getById);
         if (currentUser == null) {
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
@@ -184,6 +190,35 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User>  implements U
                 .orderBy(sortField, "ascend".equals(sortOrder));
     }
 
+    /**
+     * 更新用户后清除用户缓存
+     *
+     * @param entity      用户
+     * @param ignoreNulls 是否忽略空值
+     * @return 是否成功
+     */
+    @Override
+    public boolean updateById(User entity, boolean ignoreNulls) {
+        boolean result = super.updateById(entity, ignoreNulls);
+        userCacheManager.invalidate(entity.getId());
+        return result;
+    }
+
+    /**
+     * 删除用户后清除用户缓存
+     *
+     * @param id 用户ID
+     * @return 是否成功
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (id != null) {
+            userCacheManager.invalidate(Long.valueOf(id.toString()));
+        }
+        return result;
+    }
+
 
 
 }
@@ -0,0 +1,229 @@
+package com.yupi.yuaicodemother.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yupi.yuaicodemother.constant.AppConstant;
+import com.yupi.yuaicodemother.core.builder.VueProjectBuilder;
+import com.yupi.yuaicodemother.core.scheduler.JobScheduler;
+import com.yupi.yuaicodemother.manager.StaticFileManager;
+import com.yupi.yuaicodemother.model.enums.CodeGenTypeEnum;
+import com.yupi.yuaicodemother.model.enums.JobPriorityEnum;
+import com.yupi.yuaicodemother.model.enums.JobTypeEnum;
+import com.yupi.yuaicodemother.model.enums.VueBuildStatusEnum;
+import com.yupi.yuaicodemother.model.vo.VueBuildStatusVO;
+import com.yupi.yuaicodemother.service.VueBuildService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class VueBuildServiceImpl implements VueBuildService {
+
+    /**
+     * 已结束构建的状态保留时长
+     */
+    private static final Duration FINISHED_BUILD_RETENTION = Duration.ofHours(1);
+
+    /**
+     * 最多保留的已结束构建状态数
+     */
+    private static final long MAX_FINISHED_BUILDS = 10_000;
+
+    @Resource
+    private VueProjectBuilder vueProjectBuilder;
+
+    @Resource
+    private JobScheduler jobScheduler;
+
+    @Resource
+    private StaticFileManager staticFileManager;
+
+    /**
+     * 应用 id -> 排队中或执行中的项目构建，构建全部结束后移除
+     */
+    private final ConcurrentHashMap<Long, ProjectBuild> projectBuilds = new ConcurrentHashMap<>();
+
+    /**
+     * 应用 id -> 最近一次已结束构建的状态，供轮询构建结果使用，过期后自动清理
+     */
+    private final Cache<Long, VueBuildStatusVO> finishedBuilds = Caffeine.newBuilder()
+            .maximumSize(MAX_FINISHED_BUILDS)
+            .expireAfterWrite(FINISHED_BUILD_RETENTION)
+            .build();
+
+    @Override
+    public CompletableFuture<Boolean> submitBuild(Long appId, JobPriorityEnum priority) {
+        while (true) {
+            ProjectBuild build = projectBuilds.computeIfAbsent(appId, ProjectBuild::new);
+            synchronized (build) {
+                // 构建已结束并被移除，重新获取
+                if (build.retired) {
+                    continue;
+                }
+                // 1. 没有进行中的构建，直接提交
+                if (build.current == null) {
+                    return launch(build, priority);
+                }
+                // 2. 已有排队中（尚未开始）的构建，它会读取最新的源码，直接复用，并提升到调用方的优先级
+                if (build.status == VueBuildStatusEnum.QUEUED) {
+                    jobScheduler.raisePriority(build.current, priority);
+                    return build.current;
+                }
+                // 3. 构建执行中，登记一次后续构建（多次提交合并为一次）
+                if (build.pending == null) {
+                    build.pending = new CompletableFuture<>();
+                    build.pendingPriority = priority;
+                } else if (priority.getScore() > build.pendingPriority.getScore()) {
+                    build.pendingPriority = priority;
+                }
+                return build.pending;
+            }
+        }
+    }
+
+    @Override
+    public VueBuildStatusVO getBuildStatus(Long appId) {
+        ProjectBuild build = projectBuilds.get(appId);
+        if (build != null) {
+            synchronized (build) {
+                if (!build.retired) {
+                    return toStatusVO(build);
+                }
+            }
+        }
+        VueBuildStatusVO finishedBuild = finishedBuilds.getIfPresent(appId);
+        if (finishedBuild != null) {
+            return finishedBuild;
+        }
+        VueBuildStatusVO buildStatusVO = new VueBuildStatusVO();
+        buildStatusVO.setAppId(appId);
+        buildStatusVO.setStatus(VueBuildStatusEnum.NONE.getValue());
+        buildStatusVO.setHasPendingBuild(false);
+        return buildStatusVO;
+    }
+
+    /**
+     * 提交构建任务到调度器（调用方需持有 build 的锁）
+     */
+    private CompletableFuture<Boolean> launch(ProjectBuild build, JobPriorityEnum priority) {
+        String projectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + File.separator
+                + CodeGenTypeEnum.VUE_PROJECT.getValue() + "_" + build.appId;
+        build.status = VueBuildStatusEnum.QUEUED;
+        CompletableFuture<Boolean> future = jobScheduler.submitBlocking(JobTypeEnum.VUE_BUILD, priority, () -> {
+            long startNanos = System.nanoTime();
+            synchronized (build) {
+                build.status = VueBuildStatusEnum.BUILDING;
+                build.startTime = LocalDateTime.now();
+                build.endTime = null;
+                build.durationMs = null;
+            }
+            boolean success = false;
+            try {
+                success = vueProjectBuilder.buildProject(projectPath);
+                return success;
+            } finally {
+                // 构建产物已更新，释放旧的内存缓存
+                staticFileManager.invalidate(Paths.get(projectPath, "dist"));
+                long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+                synchronized (build) {
+                    build.status = success ? VueBuildStatusEnum.SUCCESS : VueBuildStatusEnum.FAILED;
+                    build.endTime = LocalDateTime.now();
+                    build.durationMs = durationMs;
+                }
+                log.info("应用 {} 的 Vue 项目构建结束，结果: {}，耗时: {} ms", build.appId, success, durationMs);
+            }
+        });
+        build.current = future;
+        future.whenComplete((success, error) -> onBuildComplete(build, error));
+        return future;
+    }
+
+    /**
+     * 构建结束后，若有登记的后续构建则接着执行
+     */
+    private void onBuildComplete(ProjectBuild build, Throwable error) {
+        synchronized (build) {
+            if (error != null && build.status == VueBuildStatusEnum.QUEUED) {
+                // 构建未开始就失败（如被调度器拒绝）
+                build.status = VueBuildStatusEnum.FAILED;
+                log.error("应用 {} 的 Vue 项目构建提交失败: {}", build.appId, error.getMessage());
+            }
+            build.current = null;
+            if (build.pending == null) {
+                // 没有后续构建，保留结果后从进行中的构建中移除
+                build.retired = true;
+                finishedBuilds.put(build.appId, toStatusVO(build));
+                projectBuilds.remove(build.appId, build);
+                return;
+            }
+            CompletableFuture<Boolean> pending = build.pending;
+            build.pending = null;
+            launch(build, build.pendingPriority).whenComplete((success, pendingError) -> {
+                if (pendingError != null) {
+                    pending.completeExceptionally(pendingError);
+                } else {
+                    pending.complete(success);
+                }
+            });
+        }
+    }
+
+    /**
+     * 构建状态快照（调用方需持有 build 的锁）
+     */
+    private VueBuildStatusVO toStatusVO(ProjectBuild build) {
+        VueBuildStatusVO buildStatusVO = new VueBuildStatusVO();
+        buildStatusVO.setAppId(build.appId);
+        buildStatusVO.setStatus(build.status.getValue());
+        buildStatusVO.setHasPendingBuild(build.pending != null);
+        buildStatusVO.setStartTime(build.startTime);
+        buildStatusVO.setEndTime(build.endTime);
+        buildStatusVO.setDurationMs(build.durationMs);
+        return buildStatusVO;
+    }
+
+    /**
+     * 单个项目的构建状态
+     */
+    private static final class ProjectBuild {
+
+        private final Long appId;
+
+        private VueBuildStatusEnum status = VueBuildStatusEnum.NONE;
+
+        /**
+         * 排队中或执行中的构建
+         */
+        private CompletableFuture<Boolean> current;
+
+        /**
+         * 当前构建完成后需要再执行的构建
+         */
+        private CompletableFuture<Boolean> pending;
+
+        private JobPriorityEnum pendingPriority;
+
+        private LocalDateTime startTime;
+
+        private LocalDateTime endTime;
+
+        private Long durationMs;
+
+        /**
+         * 已从 projectBuilds 中移除，不能再提交构建
+         */
+        private boolean retired;
+
+        private ProjectBuild(Long appId) {
+            this.appId = appId;
+        }
+    }
+}
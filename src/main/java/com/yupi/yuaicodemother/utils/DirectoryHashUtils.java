@@ -0,0 +1,126 @@
+package com.yupi.yuaicodemother.utils;
+
+import cn.hutool.core.util.HexUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 目录内容哈希与元数据指纹工具类
+ */
+public class DirectoryHashUtils {
+
+    private DirectoryHashUtils() {
+    }
+
+    /**
+     * 计算目录的元数据指纹（SHA-256）
+     * 按相对路径排序后依次计入文件路径、大小与修改时间，不读取文件内容；不跟随符号链接
+     *
+     * @param rootDir          目录
+     * @param excludedDirNames 需要跳过的子目录名（任意层级）
+     * @param fileFilter       需要计入的文件（参数为文件路径）
+     * @return 十六进制指纹
+     */
+    public static String fingerprintDirectory(Path rootDir, Set<String> excludedDirNames,
+                                              Predicate<Path> fileFilter) throws IOException {
+        return fingerprintFiles(rootDir, listFiles(rootDir, excludedDirNames, fileFilter));
+    }
+
+    /**
+     * 计算一组文件的元数据指纹（SHA-256），与 {@link #fingerprintDirectory} 的结果一致
+     *
+     * @param rootDir       根目录
+     * @param relativePaths 按相对路径排序的文件列表（如 {@link #listFiles} 的结果）
+     * @return 十六进制指纹
+     */
+    public static String fingerprintFiles(Path rootDir, List<Path> relativePaths) throws IOException {
+        MessageDigest digest = newSha256();
+        for (Path relativePath : relativePaths) {
+            BasicFileAttributes attrs = Files.readAttributes(rootDir.resolve(relativePath), BasicFileAttributes.class);
+            String entry = relativePath.toString().replace('\\', '/') + '\0'
+                    + attrs.size() + '\0' + attrs.lastModifiedTime().toMillis() + '\n';
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    /**
+     * 计算目录内容的 SHA-256 哈希
+     * 按相对路径排序后依次计入文件路径与文件内容，与文件修改时间无关；不跟随符号链接
+     *
+     * @param rootDir          目录
+     * @param excludedDirNames 需要跳过的子目录名（任意层级）
+     * @return 十六进制哈希
+     */
+    public static String hashDirectory(Path rootDir, Set<String> excludedDirNames) throws IOException {
+        List<Path> files = listFiles(rootDir, excludedDirNames, file -> true);
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[8192];
+        for (Path relativePath : files) {
+            // 统一使用 / 分隔，保证不同系统下结果一致
+            digest.update(relativePath.toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            try (InputStream inputStream = Files.newInputStream(rootDir.resolve(relativePath))) {
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            digest.update((byte) 0);
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    /**
+     * 列出目录下的普通文件，遍历时直接跳过被排除的目录；不跟随符号链接
+     *
+     * @param rootDir          目录
+     * @param excludedDirNames 需要跳过的子目录名（任意层级）
+     * @param fileFilter       需要列出的文件（参数为文件路径）
+     * @return 按相对路径排序的文件列表
+     */
+    public static List<Path> listFiles(Path rootDir, Set<String> excludedDirNames,
+                                       Predicate<Path> fileFilter) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(rootDir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(rootDir) && excludedDirNames.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && fileFilter.test(file)) {
+                    files.add(rootDir.relativize(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        files.sort(null);
+        return files;
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.yupi.yuaicodemother.utils;
+
+import cn.hutool.core.io.FileUtil;
+
+import java.io.File;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static java.util.Map.entry;
+
+/**
+ * 静态资源类型工具类
+ * 预先建立扩展名到 Content-Type 的映射，供静态资源输出和预压缩共用
+ */
+public class MimeTypeUtils {
+
+    /**
+     * 未知类型
+     */
+    public static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    /**
+     * 带内容哈希的构建产物的缓存策略（内容变化时文件名随之变化，可永久缓存）
+     */
+    public static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    /**
+     * Vite 构建产物目录
+     */
+    private static final String VITE_ASSETS_DIR = "assets";
+
+    /**
+     * Vite 带哈希的文件名，如 index-BZ3kV6fd.js、logo-4a7b8c9d.svg
+     */
+    private static final Pattern HASHED_FILE_NAME_PATTERN = Pattern.compile("^.+-[A-Za-z0-9_-]{8,}\\.[A-Za-z0-9]+$");
+
+    /**
+     * 扩展名 -> 资源类型
+     */
+    private static final Map<String, MimeType> MIME_TYPES = Map.ofEntries(
+            // 文本
+            entry("html", text("text/html")),
+            entry("htm", text("text/html")),
+            entry("css", text("text/css")),
+            entry("js", text("text/javascript")),
+            entry("mjs", text("text/javascript")),
+            entry("cjs", text("text/javascript")),
+            entry("json", text("application/json")),
+            entry("map", text("application/json")),
+            entry("webmanifest", text("application/manifest+json")),
+            entry("xml", text("application/xml")),
+            entry("txt", text("text/plain")),
+            entry("md", text("text/markdown")),
+            entry("csv", text("text/csv")),
+            entry("svg", new MimeType("image/svg+xml", true)),
+            entry("wasm", new MimeType("application/wasm", true)),
+            // 图片
+            entry("png", binary("image/png")),
+            entry("jpg", binary("image/jpeg")),
+            entry("jpeg", binary("image/jpeg")),
+            entry("gif", binary("image/gif")),
+            entry("webp", binary("image/webp")),
+            entry("avif", binary("image/avif")),
+            entry("bmp", new MimeType("image/bmp", true)),
+            entry("ico", new MimeType("image/x-icon", true)),
+            // 字体（woff/woff2 本身已压缩）
+            entry("woff", binary("font/woff")),
+            entry("woff2", binary("font/woff2")),
+            entry("ttf", new MimeType("font/ttf", true)),
+            entry("otf", new MimeType("font/otf", true)),
+            entry("eot", new MimeType("application/vnd.ms-fontobject", true)),
+            // 音视频与其他
+            entry("mp3", binary("audio/mpeg")),
+            entry("wav", binary("audio/wav")),
+            entry("ogg", binary("audio/ogg")),
+            entry("mp4", binary("video/mp4")),
+            entry("webm", binary("video/webm")),
+            entry("pdf", binary("application/pdf")),
+            entry("zip", binary("application/zip"))
+    );
+
+    private MimeTypeUtils() {
+    }
+
+    /**
+     * 根据文件名获取 Content-Type（文本类型带 UTF-8 字符集）
+     *
+     * @param fileName 文件名
+     * @return Content-Type
+     */
+    public static String getContentType(String fileName) {
+        MimeType mimeType = getMimeType(fileName);
+        return mimeType == null ? DEFAULT_CONTENT_TYPE : mimeType.contentType();
+    }
+
+    /**
+     * 是否为值得压缩的资源类型
+     *
+     * @param fileName 文件名
+     * @return 是否可压缩
+     */
+    public static boolean isCompressible(String fileName) {
+        MimeType mimeType = getMimeType(fileName);
+        return mimeType != null && mimeType.compressible();
+    }
+
+    /**
+     * 是否为本身已压缩的格式（图片、字体、音视频、压缩包等），再次压缩没有收益
+     *
+     * @param fileName 文件名
+     * @return 是否已压缩
+     */
+    public static boolean isAlreadyCompressed(String fileName) {
+        MimeType mimeType = getMimeType(fileName);
+        return mimeType != null && !mimeType.compressible();
+    }
+
+    /**
+     * 是否为带内容哈希的构建产物（Vite 输出到 assets 目录、文件名带哈希的资源）
+     *
+     * @param file 文件
+     * @return 是否可永久缓存
+     */
+    public static boolean isImmutableAsset(File file) {
+        File parent = file.getParentFile();
+        if (parent == null || !VITE_ASSETS_DIR.equals(parent.getName())) {
+            return false;
+        }
+        String fileName = file.getName();
+        if (!HASHED_FILE_NAME_PATTERN.matcher(fileName).matches()) {
+            return false;
+        }
+        // 哈希段中需包含数字或大写字母，避免把 my-component.js 之类的普通文件名误判为哈希
+        String hash = fileName.substring(fileName.lastIndexOf('-') + 1, fileName.lastIndexOf('.'));
+        return hash.chars().anyMatch(ch -> Character.isDigit(ch) || Character.isUpperCase(ch));
+    }
+
+    private static MimeType getMimeType(String fileName) {
+        return MIME_TYPES.get(FileUtil.extName(fileName).toLowerCase());
+    }
+
+    private static MimeType text(String contentType) {
+        return new MimeType(contentType + "; charset=UTF-8", true);
+    }
+
+    private static MimeType binary(String contentType) {
+        return new MimeType(contentType, false);
+    }
+
+    /**
+     * 资源类型
+     *
+     * @param contentType  Content-Type
+     * @param compressible 是否值得压缩
+     */
+    private record MimeType(String contentType, boolean compressible) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.yupi.yuaicodemother.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态资源预压缩工具类
+ * 文件写入时生成同名的 .gz 文件，并将其修改时间设置为与原文件一致，
+ * 输出时只有两者修改时间相同才使用压缩版本，原文件被改写后旧的压缩文件自动失效
+ */
+@Slf4j
+public class PrecompressUtils {
+
+    /**
+     * gzip 压缩文件后缀
+     */
+    public static final String GZIP_SUFFIX = ".gz";
+
+    /**
+     * 小于该大小的文件压缩收益不足，不生成压缩文件
+     */
+    private static final long MIN_COMPRESS_SIZE = 256;
+
+    private PrecompressUtils() {
+    }
+
+    /**
+     * 为单个文件生成 .gz 压缩文件，压缩后没有变小时删除已有的压缩文件；失败时只记录日志
+     *
+     * @param file 文件
+     */
+    public static void precompress(Path file) {
+        if (!MimeTypeUtils.isCompressible(file.getFileName().toString())) {
+            return;
+        }
+        Path gzipFile = file.resolveSibling(file.getFileName() + GZIP_SUFFIX);
+        Path tempFile = file.resolveSibling("." + file.getFileName() + "." + UUID.randomUUID() + ".gz.tmp");
+        try {
+            long originalSize = Files.size(file);
+            if (originalSize < MIN_COMPRESS_SIZE) {
+                Files.deleteIfExists(gzipFile);
+                return;
+            }
+            try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(tempFile), 8192) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                Files.copy(file, outputStream);
+            }
+            if (Files.size(tempFile) >= originalSize) {
+                Files.deleteIfExists(tempFile);
+                Files.deleteIfExists(gzipFile);
+                return;
+            }
+            // 修改时间与原文件一致，作为两者对应同一版本的标记
+            Files.setLastModifiedTime(tempFile, Files.getLastModifiedTime(file));
+            try {
+                Files.move(tempFile, gzipFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, gzipFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("预压缩文件失败: {}, 错误信息: {}", file, e.getMessage());
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // 临时文件清理失败不影响原文件
+            }
+        }
+    }
+
+    /**
+     * 为目录下所有可压缩文件生成 .gz 压缩文件（跳过 node_modules）
+     *
+     * @param dir 目录
+     */
+    public static void precompressDirectory(Path dir) {
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path subDir, BasicFileAttributes attrs) {
+                    if (subDir.getFileName() != null && "node_modules".equals(subDir.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        precompress(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("预压缩目录失败: {}, 错误信息: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取与原文件版本一致的 .gz 压缩文件
+     *
+     * @param file 原文件
+     * @return 压缩文件，不存在或已过期时返回 null
+     */
+    public static File findFreshGzip(File file) {
+        File gzipFile = new File(file.getPath() + GZIP_SUFFIX);
+        if (gzipFile.isFile() && gzipFile.lastModified() == file.lastModified()) {
+            return gzipFile;
+        }
+        return null;
+    }
+
+}
@@ -1,13 +1,8 @@
 package com.yupi.yuaicodemother.utils;
 
-import cn.hutool.core.img.ImgUtil;
-import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import com.yupi.yuaicodemother.exception.BusinessException;
 import com.yupi.yuaicodemother.exception.ErrorCode;
-import io.github.bonigarcia.wdm.WebDriverManager;
-import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.OutputType;
@@ -15,35 +10,85 @@ import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
-import java.io.File;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.Duration;
-import java.util.UUID;
 
 @Slf4j
 public class WebScreenshotUtils {
 
-    private static final WebDriver webDriver;
+    /**
+     * 页面静默时长（毫秒）：DOM 与网络资源在这段时间内没有变化即视为就绪
+     */
+    private static final long PAGE_QUIET_MILLIS = 300;
 
-    static {
-        final int DEFAULT_WIDTH = 1600;
-        final int DEFAULT_HEIGHT = 900;
-        webDriver = initChromeDriver(DEFAULT_WIDTH, DEFAULT_HEIGHT);
-    }
+    /**
+     * 等待页面就绪的上限（毫秒），超过后直接截图
+     */
+    private static final long PAGE_READY_TIMEOUT_MILLIS = 5000;
 
-    @PreDestroy
-    public void destroy() {
-        webDriver.quit();
-    }
+    /**
+     * 页面就绪检测脚本（异步脚本，最后一个参数为回调）
+     * 同时满足以下条件视为就绪，或达到上限后返回：
+     * 1. document.readyState 为 complete
+     * 2. 字体与图片加载完成
+     * 3. 静默时长内没有 DOM 变化，也没有新的网络资源加载完成
+     */
+    private static final String PAGE_READY_SCRIPT = """
+            var callback = arguments[arguments.length - 1];
+            var quietMillis = arguments[0];
+            var timeoutMillis = arguments[1];
+            var start = Date.now();
+            var lastChange = start;
+            var observer = new MutationObserver(function () { lastChange = Date.now(); });
+            observer.observe(document.documentElement, {childList: true, subtree: true, attributes: true, characterData: true});
+            var resourceCount = performance.getEntriesByType('resource').length;
+            function imagesLoaded() {
+                return Array.prototype.every.call(document.images, function (img) { return img.complete; });
+            }
+            function fontsLoaded() {
+                return !document.fonts || document.fonts.status === 'loaded';
+            }
+            function check() {
+                var now = Date.now();
+                var count = performance.getEntriesByType('resource').length;
+                if (count !== resourceCount) {
+                    resourceCount = count;
+                    lastChange = now;
+                }
+                var ready = document.readyState === 'complete' && imagesLoaded() && fontsLoaded()
+                        && now - lastChange >= quietMillis;
+                if (ready || now - start >= timeoutMillis) {
+                    observer.disconnect();
+                    callback(ready);
+                    return;
+                }
+                setTimeout(check, 50);
+            }
+            check();
+            """;
 
     /**
-     * 初始化 Chrome 浏览器驱动
+     * 创建 Chrome 浏览器驱动（由浏览器池调用，调用前需已完成 ChromeDriver 的安装）
+     *
+     * @param width                  窗口宽度
+     * @param height                 窗口高度
+     * @param pageLoadTimeoutSeconds 页面加载超时（秒）
+     * @return 浏览器驱动
      */
-    private static WebDriver initChromeDriver(int width, int height) {
+    public static WebDriver createChromeDriver(int width, int height, int pageLoadTimeoutSeconds) {
         try {
-            // 自动管理 ChromeDriver
-            WebDriverManager.chromedriver().setup();
             // 配置 Chrome 选项
             ChromeOptions options = new ChromeOptions();
             // 无头模式
@@ -63,9 +108,9 @@ public class WebScreenshotUtils {
             // 创建驱动
             WebDriver driver = new ChromeDriver(options);
             // 设置页面加载超时
-            driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(30));
-            // 设置隐式等待
-            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+            driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(pageLoadTimeoutSeconds));
+            // 异步脚本超时（页面就绪检测自带上限，这里留出余量）
+            driver.manage().timeouts().scriptTimeout(Duration.ofMillis(PAGE_READY_TIMEOUT_MILLIS + 2000));
             return driver;
         } catch (Exception e) {
             log.error("初始化 Chrome 浏览器失败", e);
@@ -74,50 +119,63 @@ public class WebScreenshotUtils {
     }
 
     /**
-     * 保存图片到文件
-     */
-    private static void saveImage(byte[] imageBytes, String imagePath) {
-        try {
-            FileUtil.writeBytes(imageBytes, imagePath);
-        } catch (Exception e) {
-            log.error("保存图片失败: {}", imagePath, e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存图片失败");
-        }
-    }
-
-    /**
-     * 压缩图片
+     * 将截图转换为 JPEG 缩略图（全程在内存中完成）
+     *
+     * @param imageBytes 原始截图（PNG）
+     * @param maxWidth   缩略图最大宽度，原图更窄时不放大
+     * @param quality    JPEG 质量（0~1）
+     * @return JPEG 图片字节
      */
-    private static void compressImage(String originalImagePath, String compressedImagePath) {
-        // 压缩图片质量（0.1 = 10% 质量）
-        final float COMPRESSION_QUALITY = 0.3f;
+    public static byte[] toJpegThumbnail(byte[] imageBytes, int maxWidth, float quality) {
         try {
-            ImgUtil.compress(
-                    FileUtil.file(originalImagePath),
-                    FileUtil.file(compressedImagePath),
-                    COMPRESSION_QUALITY
-            );
-        } catch (Exception e) {
-            log.error("压缩图片失败: {} -> {}", originalImagePath, compressedImagePath, e);
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(imageBytes));
+            if (source == null) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "无法解析截图");
+            }
+            int width = Math.min(maxWidth, source.getWidth());
+            int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+            // JPEG 不支持透明通道，统一绘制到 RGB 画布上
+            BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = thumbnail.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            writeParam.setCompressionQuality(quality);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(width * height / 8);
+            try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+                writer.setOutput(imageOutputStream);
+                writer.write(null, new IIOImage(thumbnail, null, null), writeParam);
+            } finally {
+                writer.dispose();
+            }
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            log.error("压缩图片失败", e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "压缩图片失败");
         }
     }
 
     /**
-     * 等待页面加载完成
+     * 等待页面就绪（事件驱动，页面静默后立即返回，不做固定等待）
      */
     private static void waitForPageLoad(WebDriver driver) {
+        long startMillis = System.currentTimeMillis();
         try {
-            // 创建等待页面加载对象
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            // 等待 document.readyState 为complete
-            wait.until(webDriver ->
-                    ((JavascriptExecutor) webDriver).executeScript("return document.readyState")
-                            .equals("complete")
-            );
-            // 额外等待一段时间，确保动态内容加载完成
-            Thread.sleep(2000);
-            log.info("页面加载完成");
+            Object ready = ((JavascriptExecutor) driver).executeAsyncScript(PAGE_READY_SCRIPT,
+                    PAGE_QUIET_MILLIS, PAGE_READY_TIMEOUT_MILLIS);
+            long elapsedMillis = System.currentTimeMillis() - startMillis;
+            if (Boolean.TRUE.equals(ready)) {
+                log.info("页面加载完成，等待 {} ms", elapsedMillis);
+            } else {
+                log.warn("页面在 {} ms 内未完全就绪，继续执行截图", elapsedMillis);
+            }
         } catch (Exception e) {
             log.error("等待页面加载时出现异常，继续执行截图", e);
         }
@@ -126,45 +184,25 @@ public class WebScreenshotUtils {
     /**
      * 生成网页截图
      *
-     * @param webUrl 网页URL
-     * @return 压缩后的截图文件路径，失败返回null
+     * @param webDriver 浏览器驱动（从浏览器池借用）
+     * @param webUrl    网页URL
+     * @return 原始截图（PNG），失败返回null
      */
-    public static String saveWebPageScreenshot(String webUrl) {
+    public static byte[] captureWebPageScreenshot(WebDriver webDriver, String webUrl) {
         if (StrUtil.isBlank(webUrl)) {
             log.error("网页URL不能为空");
             return null;
         }
         try {
-            // 创建临时目录
-            String rootPath = System.getProperty("user.dir") + File.separator + "tmp" + File.separator + "screenshots"
-                    + File.separator + UUID.randomUUID().toString().substring(0, 8);
-            FileUtil.mkdir(rootPath);
-            // 图片后缀
-            final String IMAGE_SUFFIX = ".png";
-            // 原始截图文件路径
-            String imageSavePath = rootPath + File.separator + RandomUtil.randomNumbers(5) + IMAGE_SUFFIX;
             // 访问网页
             webDriver.get(webUrl);
             // 等待页面加载完成
             waitForPageLoad(webDriver);
             // 截图
-            byte[] screenshotBytes = ((TakesScreenshot) webDriver).getScreenshotAs(OutputType.BYTES);
-            // 保存原始图片
-            saveImage(screenshotBytes, imageSavePath);
-            log.info("原始截图保存成功: {}", imageSavePath);
-            // 压缩图片
-            final String COMPRESSION_SUFFIX = "_compressed.jpg";
-            String compressedImagePath = rootPath + File.separator + RandomUtil.randomNumbers(5) + COMPRESSION_SUFFIX;
-            compressImage(imageSavePath, compressedImagePath);
-            log.info("压缩图片保存成功: {}", compressedImagePath);
-            // 删除原始图片，只保留压缩图片
-            FileUtil.del(imageSavePath);
-            return compressedImagePath;
+            return ((TakesScreenshot) webDriver).getScreenshotAs(OutputType.BYTES);
         } catch (Exception e) {
             log.error("网页截图失败: {}", webUrl, e);
             return null;
         }
     }
-
-
 }
@@ -58,4 +58,15 @@ public interface StreamingChatResponseHandler {
      * @param error The error that occurred
      */
     void onError(Throwable error);
+
+    /**
+     * Returns the handle that can be used to cancel the streaming this handler belongs to.
+     * Model implementations should stop emitting callbacks and abort the underlying request
+     * once the handle is cancelled.
+     *
+     * @return the streaming handle, or {@code null} if the streaming is not cancellable
+     */
+    default StreamingHandle streamingHandle() {
+        return null;
+    }
 }
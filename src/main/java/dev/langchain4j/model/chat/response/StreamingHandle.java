@@ -0,0 +1,68 @@
+package dev.langchain4j.model.chat.response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A handle that allows cancelling an in-flight streaming chat (including all subsequent tool-calling rounds).
+ * <p>
+ * The HTTP layer registers an abort action (e.g. closing the response body) for the request that is
+ * currently streaming. Calling {@link #cancel()} runs that action, so the underlying connection is released
+ * immediately instead of reading the response to the end.
+ * <p>
+ * This class is thread-safe.
+ */
+public class StreamingHandle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingHandle.class);
+
+    private final AtomicReference<Runnable> abortAction = new AtomicReference<>();
+
+    private volatile boolean cancelled;
+
+    /**
+     * Cancels the streaming. Further callbacks are suppressed and no new requests are issued.
+     * Calling this method multiple times has no additional effect.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        runAbortAction();
+    }
+
+    /**
+     * @return {@code true} if {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers the action that aborts the request currently streaming, replacing the previous one.
+     * If the handle is already cancelled, the action is run immediately.
+     *
+     * @param action the abort action
+     */
+    public void setAbortAction(Runnable action) {
+        abortAction.set(action);
+        if (cancelled) {
+            runAbortAction();
+        }
+    }
+
+    private void runAbortAction() {
+        Runnable action = abortAction.getAndSet(null);
+        if (action == null) {
+            return;
+        }
+        try {
+            action.run();
+        } catch (Exception e) {
+            LOG.warn("Failed to abort streaming request", e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package dev.langchain4j.model.openai;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.DefaultServerSentEventParser;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link HttpClient} decorator that makes streaming requests cancellable.
+ * <p>
+ * The {@link StreamingHandle} of the current request is bound to the calling thread by
+ * {@link OpenAiStreamingChatModel} while the request is submitted. Once the response body is available,
+ * an abort action that closes it is registered on the handle, so cancelling the handle terminates the
+ * SSE parsing and releases the connection. Events arriving after cancellation are dropped.
+ */
+class CancellableHttpClient implements HttpClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CancellableHttpClient.class);
+
+    private static final ThreadLocal<StreamingHandle> CURRENT_HANDLE = new ThreadLocal<>();
+
+    private final HttpClient delegate;
+
+    CancellableHttpClient(HttpClient delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Binds the handle to the current thread for the requests submitted by the given action.
+     */
+    static void withStreamingHandle(StreamingHandle streamingHandle, Runnable action) {
+        if (streamingHandle == null) {
+            action.run();
+            return;
+        }
+        CURRENT_HANDLE.set(streamingHandle);
+        try {
+            action.run();
+        } finally {
+            CURRENT_HANDLE.remove();
+        }
+    }
+
+    @Override
+    public SuccessfulHttpResponse execute(HttpRequest request) {
+        return delegate.execute(request);
+    }
+
+    @Override
+    public void execute(HttpRequest request, ServerSentEventListener listener) {
+        execute(request, new DefaultServerSentEventParser(), listener);
+    }
+
+    @Override
+    public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+        StreamingHandle streamingHandle = CURRENT_HANDLE.get();
+        if (streamingHandle == null) {
+            delegate.execute(request, parser, listener);
+            return;
+        }
+        if (streamingHandle.isCancelled()) {
+            return;
+        }
+        delegate.execute(request,
+                new CancellableParser(parser, streamingHandle),
+                new CancellableListener(listener, streamingHandle));
+    }
+
+    private record CancellableParser(ServerSentEventParser delegate,
+                                     StreamingHandle streamingHandle) implements ServerSentEventParser {
+
+        @Override
+        public void parse(InputStream httpResponseBody, ServerSentEventListener listener) {
+            streamingHandle.setAbortAction(() -> {
+                try {
+                    httpResponseBody.close();
+                } catch (IOException e) {
+                    LOG.debug("Failed to close the response body of a cancelled request", e);
+                }
+            });
+            if (streamingHandle.isCancelled()) {
+                return;
+            }
+            delegate.parse(httpResponseBody, listener);
+        }
+    }
+
+    private record CancellableListener(ServerSentEventListener delegate,
+                                       StreamingHandle streamingHandle) implements ServerSentEventListener {
+
+        @Override
+        public void onOpen(SuccessfulHttpResponse response) {
+            if (!streamingHandle.isCancelled()) {
+                delegate.onOpen(response);
+            }
+        }
+
+        @Override
+        public void onEvent(ServerSentEvent event) {
+            if (!streamingHandle.isCancelled()) {
+                delegate.onEvent(event);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!streamingHandle.isCancelled()) {
+                delegate.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onClose() {
+            if (!streamingHandle.isCancelled()) {
+                delegate.onClose();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package dev.langchain4j.model.openai;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+
+import java.time.Duration;
+
+/**
+ * Wraps an {@link HttpClientBuilder} so that the built client supports cancelling streaming requests
+ * via {@link dev.langchain4j.model.chat.response.StreamingHandle}.
+ */
+class CancellableHttpClientBuilder implements HttpClientBuilder {
+
+    private final HttpClientBuilder delegate;
+
+    CancellableHttpClientBuilder(HttpClientBuilder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Duration connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public HttpClientBuilder connectTimeout(Duration timeout) {
+        delegate.connectTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public Duration readTimeout() {
+        return delegate.readTimeout();
+    }
+
+    @Override
+    public HttpClientBuilder readTimeout(Duration timeout) {
+        delegate.readTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public HttpClient build() {
+        return new CancellableHttpClient(delegate.build());
+    }
+}
@@ -2,6 +2,7 @@ package dev.langchain4j.model.openai;
 
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.HttpClientBuilderLoader;
 import dev.langchain4j.internal.ExceptionMapper;
 import dev.langchain4j.internal.ToolExecutionRequestBuilder;
 import dev.langchain4j.model.ModelProvider;
@@ -13,6 +14,7 @@ import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.chat.request.DefaultChatRequestParameters;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
 import dev.langchain4j.model.openai.internal.OpenAiClient;
 import dev.langchain4j.model.openai.internal.chat.*;
 import dev.langchain4j.model.openai.internal.shared.StreamOptions;
@@ -43,8 +45,10 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
     private final List<ChatModelListener> listeners;
 
     public OpenAiStreamingChatModel(OpenAiStreamingChatModelBuilder builder) {
+        // Wrap the HTTP client so that streaming requests can be aborted through the StreamingHandle
+        HttpClientBuilder httpClientBuilder = getOrDefault(builder.httpClientBuilder, HttpClientBuilderLoader::loadHttpClientBuilder);
         this.client = OpenAiClient.builder()
-                .httpClientBuilder(builder.httpClientBuilder)
+                .httpClientBuilder(new CancellableHttpClientBuilder(httpClientBuilder))
                 .baseUrl(getOrDefault(builder.baseUrl, DEFAULT_OPENAI_URL))
                 .apiKey(builder.apiKey)
                 .organizationId(builder.organizationId)
@@ -119,10 +123,15 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
                                 .build())
                         .build();
 
+        StreamingHandle streamingHandle = handler.streamingHandle();
+        if (streamingHandle != null && streamingHandle.isCancelled()) {
+            return;
+        }
+
         OpenAiStreamingResponseBuilder openAiResponseBuilder = new OpenAiStreamingResponseBuilder();
         ToolExecutionRequestBuilder toolBuilder = new ToolExecutionRequestBuilder();
 
-        client.chatCompletion(openAiRequest)
+        CancellableHttpClient.withStreamingHandle(streamingHandle, () -> client.chatCompletion(openAiRequest)
                 .onPartialResponse(partialResponse -> {
                     openAiResponseBuilder.append(partialResponse);
                     handle(partialResponse, toolBuilder, handler);
@@ -146,7 +155,7 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
                     RuntimeException mappedException = ExceptionMapper.DEFAULT.mapException(throwable);
                     withLoggingExceptions(() -> handler.onError(mappedException));
                 })
-                .execute();
+                .execute());
     }
 
     private static void handle(ChatCompletionResponse partialResponse,
@@ -13,6 +13,7 @@ import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
 import dev.langchain4j.model.output.TokenUsage;
 import dev.langchain4j.service.tool.ToolExecution;
 import dev.langchain4j.service.tool.ToolExecutor;
@@ -57,6 +58,7 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
     private final Map<String, ToolExecutor> toolExecutors;
     private final List<String> responseBuffer = new ArrayList<>();
     private final boolean hasOutputGuardrails;
+    private final StreamingHandle streamingHandle;
 
     AiServiceStreamingResponseHandler(
             ChatExecutor chatExecutor,
@@ -73,7 +75,8 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
             List<ToolSpecification> toolSpecifications,
             Map<String, ToolExecutor> toolExecutors,
             GuardrailRequestParams commonGuardrailParams,
-            Object methodKey) {
+            Object methodKey,
+            StreamingHandle streamingHandle) {
         this.chatExecutor = ensureNotNull(chatExecutor, "chatExecutor");
         this.context = ensureNotNull(context, "context");
         this.memoryId = ensureNotNull(memoryId, "memoryId");
@@ -93,10 +96,19 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         this.toolSpecifications = copy(toolSpecifications);
         this.toolExecutors = copy(toolExecutors);
         this.hasOutputGuardrails = context.guardrailService().hasOutputGuardrails(methodKey);
+        this.streamingHandle = ensureNotNull(streamingHandle, "streamingHandle");
+    }
+
+    @Override
+    public StreamingHandle streamingHandle() {
+        return streamingHandle;
     }
 
     @Override
     public void onPartialResponse(String partialResponse) {
+        if (streamingHandle.isCancelled()) {
+            return;
+        }
         // If we're using output guardrails, then buffer the partial response until the guardrails have completed
         if (hasOutputGuardrails) {
             responseBuffer.add(partialResponse);
@@ -107,17 +119,27 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
     @Override
     public void onPartialToolExecutionRequest(int index, ToolExecutionRequest partialToolExecutionRequest) {
+        if (streamingHandle.isCancelled()) {
+            return;
+        }
         // If we're using output guardrails, then buffer the partial response until the guardrails have completed
         partialToolExecutionRequestHandler.accept(index, partialToolExecutionRequest);
     }
 
     @Override
     public void onCompleteResponse(ChatResponse completeResponse) {
+        if (streamingHandle.isCancelled()) {
+            LOG.debug("Streaming has been cancelled, skipping the rest of the tool-calling loop");
+            return;
+        }
         AiMessage aiMessage = completeResponse.aiMessage();
         addToMemory(aiMessage);
 
         if (aiMessage.hasToolExecutionRequests()) {
             for (ToolExecutionRequest toolExecutionRequest : aiMessage.toolExecutionRequests()) {
+                if (streamingHandle.isCancelled()) {
+                    return;
+                }
                 String toolName = toolExecutionRequest.name();
                 ToolExecutor toolExecutor = toolExecutors.get(toolName);
                 String toolExecutionResult = toolExecutor.execute(toolExecutionRequest, memoryId);
@@ -154,8 +176,13 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
                     toolSpecifications,
                     toolExecutors,
                     commonGuardrailParams,
-                    methodKey);
+                    methodKey,
+                    streamingHandle);
 
+            // The stream may have been cancelled while the tools were executing
+            if (streamingHandle.isCancelled()) {
+                return;
+            }
             context.streamingChatModel.chat(chatRequest, handler);
         } else {
             if (completeResponseHandler != null) {
@@ -217,6 +244,11 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
     @Override
     public void onError(Throwable error) {
+        if (streamingHandle.isCancelled()) {
+            // Aborting the HTTP request usually surfaces as an I/O error, which is expected here
+            LOG.debug("Ignored error after the streaming has been cancelled", error);
+            return;
+        }
         if (errorHandler != null) {
             try {
                 errorHandler.accept(error);
@@ -80,4 +80,12 @@ public interface TokenStream {
      * Will send a request to LLM and start response streaming.
      */
     void start();
+
+    /**
+     * Cancels the streaming started by {@link #start()}.
+     * <p>
+     * Aborts the HTTP request that is currently streaming, suppresses all further callbacks
+     * and prevents any further tool-calling rounds. Has no effect if the stream has already completed.
+     */
+    void cancel();
 }
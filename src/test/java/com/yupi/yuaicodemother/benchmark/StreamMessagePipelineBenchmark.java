@@ -0,0 +1,76 @@
+package com.yupi.yuaicodemother.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.yupi.yuaicodemother.ai.model.message.AiResponseMessage;
+import com.yupi.yuaicodemother.ai.model.message.StreamMessage;
+import com.yupi.yuaicodemother.ai.model.message.StreamMessageTypeEnum;
+import com.yupi.yuaicodemother.core.stream.GenerationStreamManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式消息处理链路基准测试：对比每个 token 的耗时和内存分配（gc.alloc.rate.norm）
+ * <p>
+ * 运行方式：执行 main 方法（已开启 GC 分析器）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamMessagePipelineBenchmark {
+
+    private String token = "<div class=\"card\">你好，世界</div>\n";
+
+    /**
+     * 改造前：外观类序列化 -> 处理器两次反序列化 -> 控制器包装后再次序列化
+     */
+    @Benchmark
+    public String jsonRoundTrip() {
+        String chunk = JSONUtil.toJsonStr(new AiResponseMessage(token));
+        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
+        StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+        String data = "";
+        if (typeEnum == StreamMessageTypeEnum.AI_RESPONSE) {
+            data = JSONUtil.toBean(chunk, AiResponseMessage.class).getData();
+        }
+        return JSONUtil.toJsonStr(Map.of("d", data));
+    }
+
+    /**
+     * 改造后：进程内传递类型化消息，只在 SSE 出口序列化一次
+     */
+    @Benchmark
+    public String typedPipeline() {
+        StreamMessage streamMessage = new AiResponseMessage(token);
+        String data = "";
+        if (streamMessage instanceof AiResponseMessage aiResponseMessage) {
+            data = aiResponseMessage.getData();
+        }
+        return GenerationStreamManager.toDataJson(data);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StreamMessagePipelineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -1,5 +1,7 @@
 package com.yupi.yuaicodemother.core;
 
+import com.yupi.yuaicodemother.ai.model.message.AiResponseMessage;
+import com.yupi.yuaicodemother.ai.model.message.StreamMessage;
 import com.yupi.yuaicodemother.model.enums.CodeGenTypeEnum;
 import jakarta.annotation.Resource;
 import org.junit.jupiter.api.Assertions;
@@ -25,9 +27,12 @@ class AiCodeGeneratorFacadeTest {
 
     @Test
     void generateAndSaveCodeStream() {
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream("一个登录页面,代码不超过20行", CodeGenTypeEnum.HTML, 1L);
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream("一个登录页面,代码不超过20行", CodeGenTypeEnum.HTML, 1L);
         // 阻塞等待所有数据收集完成
-        List<String> results = codeStream.collectList().block();
+        List<String> results = codeStream.ofType(AiResponseMessage.class)
+                .map(AiResponseMessage::getData)
+                .collectList()
+                .block();
         // 验证结果
         Assertions.assertNotNull(results);
         // 拼接字符串，得到完整内容
@@ -37,11 +42,14 @@ class AiCodeGeneratorFacadeTest {
 
     @Test
     void generateVueProjectCodeStream() {
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(
                 "简单的任务记录网站，总代码量不超过 200 行",
                 CodeGenTypeEnum.VUE_PROJECT, 1L);
         // 阻塞等待所有数据收集完成
-        List<String> result = codeStream.collectList().block();
+        List<String> result = codeStream.ofType(AiResponseMessage.class)
+                .map(AiResponseMessage::getData)
+                .collectList()
+                .block();
         // 验证结果
         Assertions.assertNotNull(result);
         String completeContent = String.join("", result);
@@ -0,0 +1,107 @@
+package com.yupi.yuaicodemother.core.parser;
+
+import com.yupi.yuaicodemother.ai.model.HtmlCodeResult;
+import com.yupi.yuaicodemother.ai.model.MultiFileCodeResult;
+import com.yupi.yuaicodemother.model.enums.CodeBlockTypeEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingCodeParserTest {
+
+    private static final String MULTI_FILE_CONTENT = """
+            创建一个完整的网页：
+            ```html
+            <!DOCTYPE html>
+            <html>
+            <body><h1>`Hello` ``World``</h1></body>
+            </html>
+            ```
+            ```CSS
+            h1 {
+                color: blue;
+            }
+            ```
+            ```javascript
+            console.log('Hello');
+            ```
+            ```html
+            <p>第二个 html 代码块会被忽略</p>
+            ```
+            """;
+
+    @Test
+    void parseWithArbitraryChunkBoundaries() {
+        MultiFileCodeResult expected = new MultiFileCodeParser().parseCode(MULTI_FILE_CONTENT);
+        assertTrue(expected.getHtmlCode().startsWith("<!DOCTYPE html>"));
+        assertTrue(expected.getHtmlCode().endsWith("</html>"));
+        assertTrue(expected.getHtmlCode().contains("`Hello` ``World``"));
+        assertEquals("h1 {\n    color: blue;\n}", expected.getCssCode());
+        assertEquals("console.log('Hello');", expected.getJsCode());
+        // 每种切分方式的解析结果都应与一次性解析一致
+        for (int chunkSize = 1; chunkSize <= 7; chunkSize++) {
+            StreamingCodeParser parser = new StreamingCodeParser();
+            for (int i = 0; i < MULTI_FILE_CONTENT.length(); i += chunkSize) {
+                parser.feed(MULTI_FILE_CONTENT.substring(i, Math.min(i + chunkSize, MULTI_FILE_CONTENT.length())));
+            }
+            parser.finish();
+            assertEquals(expected, new MultiFileCodeParser().parseCode(parser));
+        }
+    }
+
+    @Test
+    void emitBlockEventsWhileStreaming() {
+        List<String> events = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser(new StreamingCodeParser.Listener() {
+            @Override
+            public void onBlockStart(CodeBlockTypeEnum blockType) {
+                events.add("start:" + blockType.getValue());
+            }
+
+            @Override
+            public void onBlockContent(CodeBlockTypeEnum blockType, String content) {
+                events.add(content);
+            }
+
+            @Override
+            public void onBlockEnd(CodeBlockTypeEnum blockType) {
+                events.add("end:" + blockType.getValue());
+            }
+        }, false);
+        parser.feed("说明``");
+        parser.feed("`html\n  <div>");
+        parser.feed("a</div>  \n");
+        parser.feed("``");
+        parser.feed("`结束");
+        parser.finish();
+        assertEquals(List.of("start:html", "<div>", "a</div>", "end:html"), events);
+        assertNull(parser.getBlockContent(CodeBlockTypeEnum.HTML));
+        assertTrue(parser.isBlockCompleted(CodeBlockTypeEnum.HTML));
+    }
+
+    @Test
+    void fallbackToPlainTextWithoutHtmlBlock() {
+        HtmlCodeResult result = new HtmlCodeParser().parseCode("  <h1>没有代码块</h1> ```html 不换行```  ");
+        assertEquals("<h1>没有代码块</h1> ```html 不换行```", result.getHtmlCode());
+    }
+
+    @Test
+    void fallbackToPlainTextWithOnlyCssBlock() {
+        String content = " 样式如下：\n```css\nh1 { color: blue; }\n```\n ";
+        HtmlCodeResult result = new HtmlCodeParser().parseCode(content);
+        assertEquals(content.trim(), result.getHtmlCode());
+    }
+
+    @Test
+    void closeUnfinishedBlockOnFinish() {
+        StreamingCodeParser parser = new StreamingCodeParser();
+        parser.feed("```js\nlet a = 1;\n");
+        parser.finish();
+        assertEquals("let a = 1;", parser.getBlockContent(CodeBlockTypeEnum.JS));
+    }
+}
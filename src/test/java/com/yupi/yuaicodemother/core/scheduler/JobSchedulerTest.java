@@ -0,0 +1,303 @@
+package com.yupi.yuaicodemother.core.scheduler;
+
+import com.yupi.yuaicodemother.config.JobSchedulerConfig;
+import com.yupi.yuaicodemother.exception.BusinessException;
+import com.yupi.yuaicodemother.exception.ErrorCode;
+import com.yupi.yuaicodemother.model.enums.JobPriorityEnum;
+import com.yupi.yuaicodemother.model.enums.JobTypeEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobSchedulerTest {
+
+    private JobScheduler jobScheduler;
+
+    private JobSchedulerConfig jobSchedulerConfig;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    /**
+     * 占住名额的阻塞型任务，测试结束时统一放行
+     */
+    private final CountDownLatch holdLatch = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        jobSchedulerConfig = new JobSchedulerConfig();
+        jobSchedulerConfig.setMaxConcurrent(1);
+        jobSchedulerConfig.setMaxQueueSize(10);
+        jobSchedulerConfig.setGenerationMaxConcurrent(1);
+        jobSchedulerConfig.setVueBuildMaxConcurrent(1);
+        jobSchedulerConfig.setScreenshotMaxConcurrent(1);
+        meterRegistry = new SimpleMeterRegistry();
+        jobScheduler = new JobScheduler();
+        ReflectionTestUtils.setField(jobScheduler, "jobSchedulerConfig", jobSchedulerConfig);
+        ReflectionTestUtils.setField(jobScheduler, "meterRegistry", meterRegistry);
+        jobScheduler.initMetrics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        holdLatch.countDown();
+    }
+
+    @Test
+    void queueJobsBeyondCapacity() throws Exception {
+        CompletableFuture<String> holder = hold(JobTypeEnum.VUE_BUILD);
+        CompletableFuture<String> queued = jobScheduler.submitBlocking(
+                JobTypeEnum.VUE_BUILD, JobPriorityEnum.INTERACTIVE, () -> "queued");
+        assertEquals(1, jobScheduler.getRunningCount(JobTypeEnum.VUE_BUILD));
+        assertEquals(1, jobScheduler.getQueueSize(JobTypeEnum.VUE_BUILD));
+        assertEquals(1, meterRegistry.get("job.queue.size").tag("type", JobTypeEnum.VUE_BUILD.getValue())
+                .gauge().value());
+        assertFalse(queued.isDone());
+
+        holdLatch.countDown();
+        assertEquals("held", holder.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        awaitIdle(JobTypeEnum.VUE_BUILD);
+        assertEquals(0, jobScheduler.getQueueSize(JobTypeEnum.VUE_BUILD));
+    }
+
+    @Test
+    void rejectWhenQueueIsFull() throws Exception {
+        jobSchedulerConfig.setMaxQueueSize(1);
+        hold(JobTypeEnum.SCREENSHOT);
+        CompletableFuture<String> queued = jobScheduler.submitBlocking(
+                JobTypeEnum.SCREENSHOT, JobPriorityEnum.BACKGROUND, () -> "queued");
+        CompletableFuture<String> rejected = jobScheduler.submitBlocking(
+                JobTypeEnum.SCREENSHOT, JobPriorityEnum.BACKGROUND, () -> "rejected");
+
+        assertTooManyRequests(assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(1, jobScheduler.getQueueSize(JobTypeEnum.SCREENSHOT));
+        assertEquals(1, rejectedCount("queue_full"));
+
+        holdLatch.countDown();
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectWhenUserLimitIsReached() {
+        jobSchedulerConfig.setMaxConcurrent(4);
+        jobSchedulerConfig.setGenerationMaxConcurrent(4);
+        jobSchedulerConfig.setGenerationMaxConcurrentPerUser(1);
+        Disposable first = submitGeneration(1L, Flux.never()).subscribe();
+        assertEquals(1, jobScheduler.getRunningCount(JobTypeEnum.GENERATION));
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        submitGeneration(1L, Flux.never()).subscribe(value -> {
+        }, error::set);
+        assertTooManyRequests(error.get());
+        assertEquals(1, rejectedCount("user_limit"));
+
+        // 其他用户不受影响
+        Disposable other = submitGeneration(2L, Flux.never()).subscribe();
+        assertEquals(2, jobScheduler.getRunningCount(JobTypeEnum.GENERATION));
+
+        // 任务结束后该用户可以再次提交
+        first.dispose();
+        error.set(null);
+        Disposable again = submitGeneration(1L, Flux.never()).subscribe(value -> {
+        }, error::set);
+        assertNull(error.get());
+        assertEquals(2, jobScheduler.getRunningCount(JobTypeEnum.GENERATION));
+        other.dispose();
+        again.dispose();
+        assertEquals(0, jobScheduler.getRunningCount(JobTypeEnum.GENERATION));
+    }
+
+    @Test
+    void dispatchHighestPriorityFirst() throws Exception {
+        jobSchedulerConfig.setAgingPointsPerSecond(0);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        hold(JobTypeEnum.VUE_BUILD);
+        jobScheduler.submitBlocking(JobTypeEnum.VUE_BUILD, JobPriorityEnum.BACKGROUND, () -> order.add("background"));
+        jobScheduler.submitBlocking(JobTypeEnum.VUE_BUILD, JobPriorityEnum.FEATURED, () -> order.add("featured-1"));
+        jobScheduler.submitBlocking(JobTypeEnum.VUE_BUILD, JobPriorityEnum.INTERACTIVE, () -> order.add("interactive"));
+        CompletableFuture<Boolean> last = jobScheduler.submitBlocking(
+                JobTypeEnum.VUE_BUILD, JobPriorityEnum.FEATURED, () -> order.add("featured-2"));
+
+        holdLatch.countDown();
+        last.get(5, TimeUnit.SECONDS);
+        awaitIdle(JobTypeEnum.VUE_BUILD);
+        // 优先级相同时先来先服务
+        assertEquals(List.of("interactive", "featured-1", "featured-2", "background"), order);
+    }
+
+    @Test
+    void agePriorityOfWaitingJobs() throws Exception {
+        // 每毫秒 1000 分，等待 50 毫秒即超过 INTERACTIVE 与 BACKGROUND 的差值
+        jobSchedulerConfig.setAgingPointsPerSecond(1_000_000);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        hold(JobTypeEnum.VUE_BUILD);
+        jobScheduler.submitBlocking(JobTypeEnum.VUE_BUILD, JobPriorityEnum.BACKGROUND, () -> order.add("background"));
+        Thread.sleep(50);
+        CompletableFuture<Boolean> last = jobScheduler.submitBlocking(
+                JobTypeEnum.VUE_BUILD, JobPriorityEnum.INTERACTIVE, () -> order.add("interactive"));
+
+        holdLatch.countDown();
+        last.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("background", "interactive"), order);
+    }
+
+    @Test
+    void reserveCapacityForGeneration() {
+        jobSchedulerConfig.setMaxConcurrent(3);
+        jobSchedulerConfig.setGenerationMaxConcurrent(2);
+        jobSchedulerConfig.setVueBuildMaxConcurrent(3);
+        hold(JobTypeEnum.VUE_BUILD);
+        jobScheduler.submitBlocking(JobTypeEnum.VUE_BUILD, JobPriorityEnum.INTERACTIVE, () -> "queued");
+        // 总名额仍有空闲，但构建只能使用 maxConcurrent - generationMaxConcurrent 个
+        assertEquals(1, jobScheduler.getRunningCount(JobTypeEnum.VUE_BUILD));
+        assertEquals(1, jobScheduler.getQueueSize(JobTypeEnum.VUE_BUILD));
+
+        Disposable first = submitGeneration(1L, Flux.never()).subscribe();
+        Disposable second = submitGeneration(2L, Flux.never()).subscribe();
+        assertEquals(2, jobScheduler.getRunningCount(JobTypeEnum.GENERATION));
+        first.dispose();
+        second.dispose();
+    }
+
+    @Test
+    void raisePriorityOfQueuedJob() throws Exception {
+        jobSchedulerConfig.setAgingPointsPerSecond(0);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<String> holder = hold(JobTypeEnum.SCREENSHOT);
+        CompletableFuture<Boolean> background = jobScheduler.submitBlocking(
+                JobTypeEnum.SCREENSHOT, JobPriorityEnum.BACKGROUND, () -> order.add("background"));
+        CompletableFuture<Boolean> featured = jobScheduler.submitBlocking(
+                JobTypeEnum.SCREENSHOT, JobPriorityEnum.FEATURED, () -> order.add("featured"));
+
+        assertTrue(jobScheduler.raisePriority(background, JobPriorityEnum.INTERACTIVE));
+        // 不高于当前优先级、执行中的任务都不做处理
+        assertFalse(jobScheduler.raisePriority(background, JobPriorityEnum.FEATURED));
+        assertFalse(jobScheduler.raisePriority(featured, JobPriorityEnum.FEATURED));
+        assertFalse(jobScheduler.raisePriority(holder, JobPriorityEnum.INTERACTIVE));
+
+        holdLatch.countDown();
+        CompletableFuture.allOf(background, featured).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("background", "featured"), order);
+        assertFalse(jobScheduler.raisePriority(featured, JobPriorityEnum.INTERACTIVE));
+    }
+
+    @Test
+    void cancelQueuedBlockingJob() throws Exception {
+        AtomicBoolean executed = new AtomicBoolean();
+        hold(JobTypeEnum.VUE_BUILD);
+        CompletableFuture<Boolean> queued = jobScheduler.submitBlocking(
+                JobTypeEnum.VUE_BUILD, JobPriorityEnum.INTERACTIVE, () -> executed.getAndSet(true));
+        assertEquals(1, jobScheduler.getQueueSize(JobTypeEnum.VUE_BUILD));
+
+        assertTrue(queued.cancel(false));
+        assertEquals(0, jobScheduler.getQueueSize(JobTypeEnum.VUE_BUILD));
+
+        holdLatch.countDown();
+        awaitIdle(JobTypeEnum.VUE_BUILD);
+        assertFalse(executed.get());
+    }
+
+    @Test
+    void cancelQueuedStreamingJob() {
+        AtomicBoolean started = new AtomicBoolean();
+        Disposable running = submitGeneration(1L, Flux.never()).subscribe();
+        Disposable queued = jobScheduler.submit(JobTypeEnum.GENERATION, JobPriorityEnum.INTERACTIVE, 2L, () -> {
+            started.set(true);
+            return Flux.never();
+        }).subscribe();
+        assertEquals(1, jobScheduler.getQueueSize(JobTypeEnum.GENERATION));
+
+        queued.dispose();
+        assertEquals(0, jobScheduler.getQueueSize(JobTypeEnum.GENERATION));
+        running.dispose();
+        assertEquals(0, jobScheduler.getRunningCount(JobTypeEnum.GENERATION));
+        assertFalse(started.get());
+    }
+
+    @Test
+    void cancelRunningStreamingJob() {
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        Disposable running = submitGeneration(1L, Flux.never().doOnCancel(() -> upstreamCancelled.set(true)))
+                .subscribe();
+        assertEquals(1, jobScheduler.getRunningCount(JobTypeEnum.GENERATION));
+
+        running.dispose();
+        assertTrue(upstreamCancelled.get());
+        assertEquals(0, jobScheduler.getRunningCount(JobTypeEnum.GENERATION));
+    }
+
+    @Test
+    void cancelStreamingJobWhileItIsBeingDispatched() {
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        AtomicReference<Disposable> subscription = new AtomicReference<>();
+        Disposable running = submitGeneration(1L, Flux.never()).subscribe();
+        subscription.set(jobScheduler.submit(JobTypeEnum.GENERATION, JobPriorityEnum.INTERACTIVE, 2L, () -> {
+            // 任务已标记为执行中、但还没有订阅实际任务流时客户端取消
+            subscription.get().dispose();
+            return Flux.never().doOnCancel(() -> upstreamCancelled.set(true));
+        }).subscribe());
+        assertEquals(1, jobScheduler.getQueueSize(JobTypeEnum.GENERATION));
+
+        running.dispose();
+        assertTrue(upstreamCancelled.get());
+        assertEquals(0, jobScheduler.getRunningCount(JobTypeEnum.GENERATION));
+        assertEquals(0, jobScheduler.getQueueSize(JobTypeEnum.GENERATION));
+    }
+
+    /**
+     * 提交一个阻塞到测试结束（或 holdLatch 放行）的任务，占住一个名额
+     */
+    private CompletableFuture<String> hold(JobTypeEnum jobType) {
+        CompletableFuture<String> future = jobScheduler.submitBlocking(jobType, JobPriorityEnum.INTERACTIVE, () -> {
+            holdLatch.await();
+            return "held";
+        });
+        assertEquals(1, jobScheduler.getRunningCount(jobType));
+        return future;
+    }
+
+    private <T> Flux<T> submitGeneration(Long userId, Flux<T> task) {
+        return jobScheduler.submit(JobTypeEnum.GENERATION, JobPriorityEnum.INTERACTIVE, userId, () -> task);
+    }
+
+    /**
+     * 阻塞型任务在 Future 完成后才释放名额，等待名额归还
+     */
+    private void awaitIdle(JobTypeEnum jobType) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (jobScheduler.getRunningCount(jobType) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, jobScheduler.getRunningCount(jobType));
+    }
+
+    private double rejectedCount(String reason) {
+        return meterRegistry.get("job.rejected").tag("reason", reason).counter().count();
+    }
+
+    private static void assertTooManyRequests(Throwable error) {
+        BusinessException exception = assertInstanceOf(BusinessException.class, error);
+        assertEquals(ErrorCode.TOO_MANY_REQUEST.getCode(), exception.getCode());
+    }
+}
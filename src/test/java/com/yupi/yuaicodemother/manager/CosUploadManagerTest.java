@@ -0,0 +1,90 @@
+package com.yupi.yuaicodemother.manager;
+
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.exception.CosServiceException;
+import com.qcloud.cos.model.PutObjectRequest;
+import com.qcloud.cos.model.PutObjectResult;
+import com.yupi.yuaicodemother.config.CosClientConfig;
+import com.yupi.yuaicodemother.config.CosUploadConfig;
+import com.yupi.yuaicodemother.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CosUploadManagerTest {
+
+    private COSClient cosClient;
+
+    private CosUploadManager cosUploadManager;
+
+    @BeforeEach
+    void setUp() {
+        CosClientConfig cosClientConfig = new CosClientConfig();
+        cosClientConfig.setHost("http://localhost:9000");
+        cosClientConfig.setBucket("test-bucket");
+        CosUploadConfig cosUploadConfig = new CosUploadConfig();
+        cosUploadConfig.setInitialBackoffMillis(1);
+        cosClient = mock(COSClient.class);
+        CosManager cosManager = new CosManager();
+        ReflectionTestUtils.setField(cosManager, "cosClientConfig", cosClientConfig);
+        ReflectionTestUtils.setField(cosManager, "cosClient", cosClient);
+        cosUploadManager = new CosUploadManager();
+        ReflectionTestUtils.setField(cosUploadManager, "cosClientConfig", cosClientConfig);
+        ReflectionTestUtils.setField(cosUploadManager, "cosUploadConfig", cosUploadConfig);
+        ReflectionTestUtils.setField(cosUploadManager, "cosClient", cosClient);
+        ReflectionTestUtils.setField(cosUploadManager, "cosManager", cosManager);
+        ReflectionTestUtils.setField(cosUploadManager, "meterRegistry", new SimpleMeterRegistry());
+        cosUploadManager.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cosUploadManager.destroy();
+    }
+
+    @Test
+    void retryOnServerError() {
+        when(cosClient.putObject(any(PutObjectRequest.class)))
+                .thenThrow(serviceException(503))
+                .thenReturn(new PutObjectResult());
+        String url = cosUploadManager.uploadAsync("/screenshots/a.jpg", new byte[]{1, 2, 3}, "image/jpeg").join();
+        assertEquals("http://localhost:9000/screenshots/a.jpg", url);
+        verify(cosClient, times(2)).putObject(any(PutObjectRequest.class));
+    }
+
+    @Test
+    void noRetryOnClientError() {
+        when(cosClient.putObject(any(PutObjectRequest.class))).thenThrow(serviceException(403));
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> cosUploadManager.uploadAsync("/screenshots/b.jpg", new byte[]{1}, "image/jpeg").join());
+        assertInstanceOf(BusinessException.class, exception.getCause());
+        verify(cosClient, times(1)).putObject(any(PutObjectRequest.class));
+    }
+
+    @Test
+    void giveUpAfterMaxAttempts() {
+        when(cosClient.putObject(any(PutObjectRequest.class))).thenThrow(serviceException(500));
+        assertThrows(CompletionException.class,
+                () -> cosUploadManager.uploadAsync("/screenshots/c.jpg", new byte[]{1}, "image/jpeg").join());
+        verify(cosClient, times(3)).putObject(any(PutObjectRequest.class));
+    }
+
+    private static CosServiceException serviceException(int statusCode) {
+        CosServiceException exception = new CosServiceException("mock error");
+        exception.setStatusCode(statusCode);
+        return exception;
+    }
+}
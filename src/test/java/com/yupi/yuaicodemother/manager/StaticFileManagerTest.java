@@ -0,0 +1,228 @@
+package com.yupi.yuaicodemother.manager;
+
+import com.yupi.yuaicodemother.config.StaticFileConfig;
+import com.yupi.yuaicodemother.utils.PrecompressUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticFileManagerTest {
+
+    private static final String CONTENT = "0123456789";
+
+    /**
+     * 整秒，与 HTTP 日期的精度一致
+     */
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    private static final DateTimeFormatter HTTP_DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    @TempDir
+    Path tempDir;
+
+    private StaticFileManager staticFileManager;
+
+    private File file;
+
+    private String etag;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        staticFileManager = new StaticFileManager();
+        ReflectionTestUtils.setField(staticFileManager, "staticFileConfig", new StaticFileConfig());
+        ReflectionTestUtils.setField(staticFileManager, "meterRegistry", new SimpleMeterRegistry());
+        staticFileManager.init();
+        file = writeFile("data.bin", CONTENT);
+        etag = serve(file, request()).getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void serveFullContentWithValidators() throws IOException {
+        MockHttpServletResponse response = serve(file, request());
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+        assertEquals(CONTENT.length(), response.getContentLength());
+        assertEquals("\"a-" + Long.toHexString(LAST_MODIFIED) + "\"", etag);
+        assertEquals(LAST_MODIFIED, response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void serveSuffixRange() throws IOException {
+        MockHttpServletResponse response = serve(file, request(HttpHeaders.RANGE, "bytes=-3"));
+        assertPartial(response, "789", "bytes 7-9/10");
+    }
+
+    @Test
+    void clampSuffixRangeLongerThanFile() throws IOException {
+        MockHttpServletResponse response = serve(file, request(HttpHeaders.RANGE, "bytes=-20"));
+        assertPartial(response, CONTENT, "bytes 0-9/10");
+    }
+
+    @Test
+    void serveOpenEndedRange() throws IOException {
+        MockHttpServletResponse response = serve(file, request(HttpHeaders.RANGE, "bytes=4-"));
+        assertPartial(response, "456789", "bytes 4-9/10");
+    }
+
+    @Test
+    void clampRangeEndToFileLength() throws IOException {
+        MockHttpServletResponse response = serve(file, request(HttpHeaders.RANGE, "bytes=8-100"));
+        assertPartial(response, "89", "bytes 8-9/10");
+    }
+
+    @Test
+    void rejectUnsatisfiableRange() throws IOException {
+        MockHttpServletResponse response = serve(file, request(HttpHeaders.RANGE, "bytes=10-"));
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("", response.getContentAsString());
+
+        response = serve(file, request(HttpHeaders.RANGE, "bytes=-0"));
+        assertEquals(416, response.getStatus());
+    }
+
+    @Test
+    void ignoreMultipleAndMalformedRanges() throws IOException {
+        for (String range : new String[]{"bytes=0-1,4-5", "items=0-1", "bytes=a-b"}) {
+            MockHttpServletResponse response = serve(file, request(HttpHeaders.RANGE, range));
+            assertEquals(200, response.getStatus(), range);
+            assertEquals(CONTENT, response.getContentAsString(), range);
+            assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+        }
+    }
+
+    @Test
+    void matchIfNoneMatchWeakly() throws IOException {
+        assertEquals(304, serve(file, request(HttpHeaders.IF_NONE_MATCH, etag)).getStatus());
+        assertEquals(304, serve(file, request(HttpHeaders.IF_NONE_MATCH, "W/" + etag)).getStatus());
+        assertEquals(304, serve(file, request(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag)).getStatus());
+        assertEquals(304, serve(file, request(HttpHeaders.IF_NONE_MATCH, "*")).getStatus());
+        MockHttpServletResponse response = serve(file, request(HttpHeaders.IF_NONE_MATCH, "\"other\""));
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    void preferIfNoneMatchOverIfModifiedSince() throws IOException {
+        MockHttpServletResponse response = serve(file, request(
+                HttpHeaders.IF_NONE_MATCH, "\"other\"",
+                HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED)));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void checkIfModifiedSince() throws IOException {
+        assertEquals(304, serve(file, request(HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED))).getStatus());
+        assertEquals(200, serve(file, request(HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED - 1000))).getStatus());
+        // 无法解析的日期视为没有条件
+        assertEquals(200, serve(file, request(HttpHeaders.IF_MODIFIED_SINCE, "yesterday")).getStatus());
+    }
+
+    @Test
+    void applyRangeOnlyWhenIfRangeEtagMatches() throws IOException {
+        MockHttpServletResponse response = serve(file, request(HttpHeaders.RANGE, "bytes=4-", HttpHeaders.IF_RANGE, etag));
+        assertPartial(response, "456789", "bytes 4-9/10");
+
+        response = serve(file, request(HttpHeaders.RANGE, "bytes=4-", HttpHeaders.IF_RANGE, "\"other\""));
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+
+        // If-Range 使用强比较，弱 ETag 不满足
+        response = serve(file, request(HttpHeaders.RANGE, "bytes=4-", HttpHeaders.IF_RANGE, "W/" + etag));
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    void applyRangeOnlyWhenIfRangeDateIsCurrent() throws IOException {
+        MockHttpServletResponse response = serve(file, request(
+                HttpHeaders.RANGE, "bytes=4-", HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED)));
+        assertPartial(response, "456789", "bytes 4-9/10");
+
+        response = serve(file, request(
+                HttpHeaders.RANGE, "bytes=4-", HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED - 1000)));
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    void servePrecompressedFileUnlessGzipIsRefused() throws IOException {
+        File htmlFile = writeFile("index.html", "<p>hello</p>\n".repeat(100));
+        PrecompressUtils.precompress(htmlFile.toPath());
+
+        MockHttpServletResponse response = serve(htmlFile, request(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"));
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertTrue(response.getHeader(HttpHeaders.ETAG).endsWith("-gzip\""));
+        assertEquals(new File(htmlFile.getPath() + PrecompressUtils.GZIP_SUFFIX).length(), response.getContentLength());
+
+        assertEquals("gzip", serve(htmlFile, request(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.5"))
+                .getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", serve(htmlFile, request(HttpHeaders.ACCEPT_ENCODING, "*"))
+                .getHeader(HttpHeaders.CONTENT_ENCODING));
+        for (String acceptEncoding : new String[]{"gzip;q=0", "gzip; q=0.0, br", "*;q=0", "deflate"}) {
+            response = serve(htmlFile, request(HttpHeaders.ACCEPT_ENCODING, acceptEncoding));
+            assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+            assertEquals("<p>hello</p>\n".repeat(100), response.getContentAsString(), acceptEncoding);
+        }
+    }
+
+    private File writeFile(String fileName, String content) throws IOException {
+        File target = tempDir.resolve(fileName).toFile();
+        Files.writeString(target.toPath(), content);
+        assertTrue(target.setLastModified(LAST_MODIFIED));
+        return target;
+    }
+
+    private MockHttpServletResponse serve(File target, MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        staticFileManager.serveFile(target, request, response);
+        return response;
+    }
+
+    /**
+     * 构造 GET 请求
+     *
+     * @param headers 依次为请求头名称与值
+     */
+    private static MockHttpServletRequest request(String... headers) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        for (int i = 0; i < headers.length; i += 2) {
+            request.addHeader(headers[i], headers[i + 1]);
+        }
+        return request;
+    }
+
+    private static String httpDate(long epochMillis) {
+        return HTTP_DATE_FORMATTER.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    private static void assertPartial(MockHttpServletResponse response, String body, String contentRange)
+            throws IOException {
+        assertEquals(206, response.getStatus());
+        assertEquals(contentRange, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(body, response.getContentAsString());
+        assertEquals(body.length(), response.getContentLength());
+    }
+}
@@ -0,0 +1,89 @@
+package com.yupi.yuaicodemother.service.impl;
+
+import com.yupi.yuaicodemother.model.entity.App;
+import com.yupi.yuaicodemother.model.entity.User;
+import com.yupi.yuaicodemother.model.vo.AppVO;
+import com.yupi.yuaicodemother.model.vo.UserVO;
+import com.yupi.yuaicodemother.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppServiceImplTest {
+
+    private UserService userService;
+
+    private AppServiceImpl appService;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        when(userService.listByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<?> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> {
+                User user = new User();
+                user.setId((Long) id);
+                user.setUserName("user-" + id);
+                return user;
+            }).toList();
+        });
+        when(userService.getUserVO(any())).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            UserVO userVO = new UserVO();
+            userVO.setId(user.getId());
+            userVO.setUserName(user.getUserName());
+            return userVO;
+        });
+        appService = new AppServiceImpl();
+        ReflectionTestUtils.setField(appService, "userService", userService);
+    }
+
+    @Test
+    void getAppVOListQueriesUsersOncePerPage() {
+        // 一页 20 个应用，来自 3 个用户
+        List<App> appList = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            App app = new App();
+            app.setId(i);
+            app.setAppName("app-" + i);
+            app.setUserId(i % 3 + 1);
+            appList.add(app);
+        }
+        List<AppVO> appVOList = appService.getAppVOList(appList);
+        verify(userService, times(1)).listByIds(anyCollection());
+        verify(userService, never()).getById(any(Serializable.class));
+        assertEquals(20, appVOList.size());
+        for (int i = 0; i < appList.size(); i++) {
+            AppVO appVO = appVOList.get(i);
+            assertEquals(appList.get(i).getId(), appVO.getId());
+            assertEquals(appList.get(i).getUserId(), appVO.getUser().getId());
+            assertEquals("user-" + appList.get(i).getUserId(), appVO.getUser().getUserName());
+        }
+    }
+
+    @Test
+    void getAppVOListSkipsUserQueryWithoutUserIds() {
+        App app = new App();
+        app.setId(1L);
+        List<AppVO> appVOList = appService.getAppVOList(List.of(app));
+        verify(userService, never()).listByIds(anyCollection());
+        verify(userService, never()).getById(any(Serializable.class));
+        assertEquals(1, appVOList.size());
+        assertNull(appVOList.get(0).getUser());
+    }
+}
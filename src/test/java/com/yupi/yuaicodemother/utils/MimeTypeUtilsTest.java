@@ -0,0 +1,43 @@
+package com.yupi.yuaicodemother.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MimeTypeUtilsTest {
+
+    @Test
+    void recognizeHashedViteAssets() {
+        for (String path : new String[]{
+                "dist/assets/index-BdP4K3xZ.js",
+                "dist/assets/vendor-5f3a9c1d.css",
+                "dist/assets/logo-a1b2c3d4e5.svg",
+                "dist/assets/chunk-D_x-9aQw.js",
+                "assets/my-page-CwL8pZ1q.woff2"}) {
+            assertTrue(MimeTypeUtils.isImmutableAsset(new File(path)), path);
+        }
+    }
+
+    @Test
+    void rejectFilesWithoutContentHash() {
+        for (String path : new String[]{
+                // 不在 assets 目录下
+                "dist/index-BdP4K3xZ.js",
+                "dist/static/index-BdP4K3xZ.js",
+                "index-BdP4K3xZ.js",
+                // 没有哈希段或哈希段过短
+                "dist/assets/index.js",
+                "dist/assets/my-component.js",
+                "dist/assets/logo-a1b2c3.svg",
+                // 哈希段只有小写字母，更像普通单词
+                "dist/assets/button-component.js",
+                "dist/assets/hello-worldwide.css",
+                // 没有扩展名
+                "dist/assets/index-BdP4K3xZ"}) {
+            assertFalse(MimeTypeUtils.isImmutableAsset(new File(path)), path);
+        }
+    }
+}